@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin;
+
+import io.gatling.plugin.benchmarks.SyntheticJars;
+import io.gatling.plugin.exceptions.EnterprisePluginException;
+import io.gatling.scanner.SimulationScanResult;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnterpriseSimulationScannerBenchmark {
+
+  @Param({"100", "5000"})
+  public int classCount;
+
+  private File jar;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    jar = SyntheticJars.classEntries(classCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    jar.delete();
+  }
+
+  @Benchmark
+  public SimulationScanResult scan() throws EnterprisePluginException {
+    return EnterpriseSimulationScanner.simulationFullyQualifiedNamesFromFile(jar);
+  }
+}
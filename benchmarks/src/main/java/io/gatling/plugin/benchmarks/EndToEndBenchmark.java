@@ -0,0 +1,253 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.benchmarks;
+
+import io.gatling.plugin.BatchEnterprisePluginClient;
+import io.gatling.plugin.client.http.HttpEnterpriseClient;
+import io.gatling.plugin.io.PluginLogger;
+import io.gatling.plugin.util.CacheDirectory;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * End-to-end throughput and latency harness for {@code uploadPackageAndStartSimulation}, run
+ * against a {@link MockEnterpriseServer}.
+ *
+ * <p>Every operation creates its own {@link HttpEnterpriseClient}, like a plugin invocation does.
+ * Options, all optional, are passed as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code package}: JAR containing {@link MockEnterpriseServer#SIMULATION_CLASS_NAME},
+ *       defaults to the {@code gatling.benchmark.samplePackage} system property
+ *   <li>{@code sizesMb}: comma-separated package sizes, default {@code 1,10,50}
+ *   <li>{@code concurrency}: comma-separated numbers of concurrent operations, default {@code
+ *       1,4,16}
+ *   <li>{@code operations}: operations per size and concurrency level, default {@code 32}
+ *   <li>{@code latencyMs}: server latency per request, default {@code 20}
+ *   <li>{@code bandwidthMbps}: server bandwidth limit per connection, default {@code 0} (unlimited)
+ *   <li>{@code errorRate}: ratio of requests failing with a 503, default {@code 0}
+ * </ul>
+ *
+ * <p>The plugin caches are kept in a temporary directory, and the catalogs are never reused, so
+ * that every operation measures the full path.
+ */
+public final class EndToEndBenchmark {
+
+  private static final PluginLogger SILENT_LOGGER =
+      new PluginLogger() {
+        @Override
+        public void info(String message) {}
+
+        @Override
+        public void error(String message) {}
+      };
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private EndToEndBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = parseOptions(args);
+    final File basePackage =
+        new File(
+            options.getOrDefault("package", System.getProperty("gatling.benchmark.samplePackage")));
+    final List<Integer> sizesMb = parseInts(options.getOrDefault("sizesMb", "1,10,50"));
+    final List<Integer> concurrencyLevels =
+        parseInts(options.getOrDefault("concurrency", "1,4,16"));
+    final int operations = Integer.parseInt(options.getOrDefault("operations", "32"));
+    final long latencyMs = Long.parseLong(options.getOrDefault("latencyMs", "20"));
+    final long bandwidthMbps = Long.parseLong(options.getOrDefault("bandwidthMbps", "0"));
+    final double errorRate = Double.parseDouble(options.getOrDefault("errorRate", "0"));
+
+    System.setProperty(
+        CacheDirectory.CACHE_DIRECTORY_PROPERTY,
+        Files.createTempDirectory("gatling-benchmark-cache").toString());
+    System.setProperty("gatling.enterprise.catalogMaxAge", "0");
+
+    System.out.printf(
+        "latency=%dms bandwidth=%s errorRate=%.2f operations=%d%n",
+        latencyMs, bandwidthMbps > 0 ? bandwidthMbps + "Mbps" : "unlimited", errorRate, operations);
+    System.out.printf(
+        "%8s %6s %8s %8s %9s %9s %9s %12s %12s%n",
+        "size(MB)",
+        "conc",
+        "failures",
+        "ops/s",
+        "p50(ms)",
+        "p95(ms)",
+        "max(ms)",
+        "alloc(MB/op)",
+        "peakHeap(MB)");
+
+    try (MockEnterpriseServer server =
+        new MockEnterpriseServer(latencyMs, bandwidthMbps * 1_000_000 / 8, errorRate)) {
+      for (int sizeMb : sizesMb) {
+        final File pkg = SyntheticJars.padded(basePackage, sizeMb * 1024L * 1024L, 42L);
+        // warm-up, not measured
+        run(server, pkg, 1, Math.min(operations, 4));
+        for (int concurrency : concurrencyLevels) {
+          final Result result = run(server, pkg, concurrency, operations);
+          System.out.printf(
+              "%8d %6d %8d %8.2f %9.1f %9.1f %9.1f %12.2f %12.1f%n",
+              sizeMb,
+              concurrency,
+              result.failures,
+              result.throughput(),
+              result.percentileMillis(0.50),
+              result.percentileMillis(0.95),
+              result.percentileMillis(1.0),
+              result.allocatedBytes / (double) operations / 1024 / 1024,
+              result.peakHeapBytes / 1024.0 / 1024);
+          if (result.firstFailure != null) {
+            System.out.printf("first failure (size=%dMB, conc=%d):%n", sizeMb, concurrency);
+            result.firstFailure.printStackTrace(System.out);
+          }
+        }
+        pkg.delete();
+      }
+    }
+  }
+
+  private static Result run(MockEnterpriseServer server, File pkg, int concurrency, int operations)
+      throws InterruptedException {
+    System.gc();
+    final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        heapPools.add(pool);
+      }
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    final long[] durations = new long[operations];
+    final AtomicLong failures = new AtomicLong();
+    final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+    final AtomicLong allocatedBytes = new AtomicLong();
+    final CountDownLatch done = new CountDownLatch(operations);
+    final long start = System.nanoTime();
+    for (int i = 0; i < operations; i++) {
+      final int operation = i;
+      executor.execute(
+          () -> {
+            final long allocatedBefore = currentThreadAllocatedBytes();
+            final long operationStart = System.nanoTime();
+            try {
+              final HttpEnterpriseClient client =
+                  new HttpEnterpriseClient(server.baseUrl(), "token", "benchmark", "1.0");
+              new BatchEnterprisePluginClient(client, SILENT_LOGGER)
+                  .uploadPackageAndStartSimulation(
+                      UUID.randomUUID(), Collections.emptyMap(), Collections.emptyMap(), null, pkg);
+            } catch (Exception e) {
+              failures.incrementAndGet();
+              firstFailure.compareAndSet(null, e);
+            } finally {
+              durations[operation] = System.nanoTime() - operationStart;
+              allocatedBytes.addAndGet(currentThreadAllocatedBytes() - allocatedBefore);
+              done.countDown();
+            }
+          });
+    }
+    done.await();
+    final long elapsed = System.nanoTime() - start;
+    executor.shutdown();
+
+    long peakHeapBytes = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peakHeapBytes += pool.getPeakUsage().getUsed();
+    }
+    Arrays.sort(durations);
+    return new Result(
+        durations,
+        elapsed,
+        failures.get(),
+        firstFailure.get(),
+        allocatedBytes.get(),
+        peakHeapBytes);
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value, got " + arg);
+      }
+      final int separator = arg.indexOf('=');
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+
+  private static List<Integer> parseInts(String value) {
+    final List<Integer> ints = new ArrayList<>();
+    for (String element : value.split(",")) {
+      ints.add(Integer.parseInt(element.trim()));
+    }
+    return ints;
+  }
+
+  private static final class Result {
+    private final long[] sortedDurations;
+    private final long elapsedNanos;
+    private final long failures;
+    private final Exception firstFailure;
+    private final long allocatedBytes;
+    private final long peakHeapBytes;
+
+    private Result(
+        long[] sortedDurations,
+        long elapsedNanos,
+        long failures,
+        Exception firstFailure,
+        long allocatedBytes,
+        long peakHeapBytes) {
+      this.sortedDurations = sortedDurations;
+      this.elapsedNanos = elapsedNanos;
+      this.failures = failures;
+      this.firstFailure = firstFailure;
+      this.allocatedBytes = allocatedBytes;
+      this.peakHeapBytes = peakHeapBytes;
+    }
+
+    private double throughput() {
+      return sortedDurations.length / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    private double percentileMillis(double percentile) {
+      final int index =
+          Math.min(
+              sortedDurations.length - 1, (int) Math.ceil(percentile * sortedDurations.length) - 1);
+      return sortedDurations[Math.max(0, index)] / 1_000_000.0;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Gatling Enterprise public API, serving the endpoints used by {@code
+ * uploadPackageAndStartSimulation}.
+ *
+ * <p>Every simulation ID is known, and belongs to the same package. Packages never have a matching
+ * checksum, so that every run uploads its file.
+ */
+public final class MockEnterpriseServer implements AutoCloseable {
+
+  public static final String SIMULATION_CLASS_NAME = "frontline.sample.BasicSimulation";
+
+  private static final String API_PREFIX = "/api/public/";
+  private static final int CHUNK_SIZE = 8192;
+
+  private final long latencyMillis;
+  private final long bytesPerSecond;
+  private final double errorRate;
+  private final UUID teamId = UUID.randomUUID();
+  private final UUID pkgId = UUID.randomUUID();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong injectedErrors = new AtomicLong();
+  private final AtomicLong uploadedBytes = new AtomicLong();
+
+  /**
+   * @param latencyMillis latency added before each response
+   * @param bytesPerSecond bandwidth limit applied to request and response bodies, 0 for unlimited
+   * @param errorRate ratio of requests, between 0 and 1, answered with a 503 error
+   */
+  public MockEnterpriseServer(long latencyMillis, long bytesPerSecond, double errorRate)
+      throws IOException {
+    this.latencyMillis = latencyMillis;
+    this.bytesPerSecond = bytesPerSecond;
+    this.errorRate = errorRate;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  public URL baseUrl() {
+    try {
+      return new URL("http://127.0.0.1:" + server.getAddress().getPort());
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public long requests() {
+    return requests.get();
+  }
+
+  public long injectedErrors() {
+    return injectedErrors.get();
+  }
+
+  public long uploadedBytes() {
+    return uploadedBytes.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requests.incrementAndGet();
+      final long uploaded = drain(exchange.getRequestBody());
+      if (latencyMillis > 0) {
+        Thread.sleep(latencyMillis);
+      }
+      if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+        injectedErrors.incrementAndGet();
+        respond(exchange, 503, "{\"error\":\"injected error\"}");
+        return;
+      }
+
+      final String method = exchange.getRequestMethod();
+      final String path = exchange.getRequestURI().getPath();
+      final String route = path.startsWith(API_PREFIX) ? path.substring(API_PREFIX.length()) : path;
+      final String[] segments = route.split("/");
+
+      if (method.equals("GET") && route.equals("compatibility")) {
+        respond(exchange, 200, "");
+      } else if (method.equals("GET") && route.equals("info")) {
+        respond(exchange, 200, "{\"versions\":{\"java\":{\"min\":\"8\",\"max\":\"21\"}}}");
+      } else if (method.equals("GET")
+          && segments.length == 2
+          && segments[0].equals("simulations")) {
+        respond(exchange, 200, simulationJson(segments[1]));
+      } else if (method.equals("POST") && route.equals("simulations/start")) {
+        respond(exchange, 200, runSummaryJson());
+      } else if (method.equals("PUT") && segments.length == 3 && segments[2].equals("classname")) {
+        respond(exchange, 200, "{\"className\":\"" + SIMULATION_CLASS_NAME + "\"}");
+      } else if (method.equals("GET") && segments.length == 2 && segments[0].equals("artifacts")) {
+        respond(exchange, 200, packageJson(segments[1]));
+      } else if (method.equals("PUT") && segments.length == 3 && segments[2].equals("content")) {
+        uploadedBytes.addAndGet(uploaded);
+        respond(exchange, 200, "");
+      } else {
+        respond(exchange, 404, "");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private String simulationJson(String id) {
+    return String.format(
+        "{\"id\":\"%s\",\"name\":\"Benchmark simulation\",\"teamId\":\"%s\",\"className\":\"%s\",\"build\":{\"pkgId\":\"%s\"}}",
+        id, teamId, SIMULATION_CLASS_NAME, pkgId);
+  }
+
+  private String packageJson(String id) {
+    return String.format(
+        "{\"id\":\"%s\",\"teamId\":\"%s\",\"name\":\"Benchmark package\"}", id, teamId);
+  }
+
+  private String runSummaryJson() {
+    final UUID runId = UUID.randomUUID();
+    return String.format(
+        "{\"runId\":\"%s\",\"className\":\"%s\",\"reportsPath\":\"/#/simulations/reports/%s\"}",
+        runId, SIMULATION_CLASS_NAME, runId);
+  }
+
+  private long drain(InputStream body) throws IOException, InterruptedException {
+    final byte[] buffer = new byte[CHUNK_SIZE];
+    long total = 0;
+    int read;
+    while ((read = body.read(buffer)) != -1) {
+      total += read;
+      throttle(read);
+    }
+    return total;
+  }
+
+  private void respond(HttpExchange exchange, int status, String body)
+      throws IOException, InterruptedException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    if (bytes.length > 0) {
+      try (OutputStream os = exchange.getResponseBody()) {
+        for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+          final int length = Math.min(CHUNK_SIZE, bytes.length - offset);
+          os.write(bytes, offset, length);
+          throttle(length);
+        }
+      }
+    }
+  }
+
+  private void throttle(int bytes) throws InterruptedException {
+    if (bytesPerSecond > 0) {
+      TimeUnit.NANOSECONDS.sleep(bytes * 1_000_000_000L / bytesPerSecond);
+    }
+  }
+}
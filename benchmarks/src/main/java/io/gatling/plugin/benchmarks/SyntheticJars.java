@@ -0,0 +1,168 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.benchmarks;
+
+import io.gatling.plugin.util.InputStreamUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/** Generates reproducible JAR files used as benchmark inputs. */
+public final class SyntheticJars {
+
+  private static final String[] TEMPLATE_CLASSES = {
+    "io/gatling/plugin/model/Simulation.class",
+    "io/gatling/plugin/model/Pkg.class",
+    "io/gatling/plugin/model/SimulationCreationPayload.class",
+    "io/gatling/plugin/util/Fork.class",
+    "io/gatling/plugin/InteractiveEnterprisePluginClient.class"
+  };
+
+  private SyntheticJars() {}
+
+  /**
+   * Create a JAR made of random binary entries, as seen by {@code PkgChecksum}.
+   *
+   * @param entryCount number of entries, besides the manifest
+   * @param entrySize size in bytes of each entry
+   * @param seed seed used to generate the content, for reproducible runs
+   * @return a temporary file, deleted on exit
+   */
+  public static File randomEntries(int entryCount, int entrySize, long seed) throws IOException {
+    final File file = newTempJar();
+    final Random random = new Random(seed);
+    final byte[] content = new byte[entrySize];
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest())) {
+      for (int i = 0; i < entryCount; i++) {
+        random.nextBytes(content);
+        jos.putNextEntry(new JarEntry(String.format("synthetic/%04d/entry-%d.bin", i / 100, i)));
+        jos.write(content);
+        jos.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Create a JAR made of real class files, as seen by {@code EnterpriseSimulationScanner}.
+   *
+   * <p>Class files are copied from this library, so that the scanner parses real bytecode.
+   *
+   * @param classCount number of class entries
+   * @return a temporary file, deleted on exit
+   */
+  public static File classEntries(int classCount) throws IOException {
+    final List<byte[]> templates = new ArrayList<>(TEMPLATE_CLASSES.length);
+    for (String template : TEMPLATE_CLASSES) {
+      try (InputStream is = SyntheticJars.class.getClassLoader().getResourceAsStream(template)) {
+        if (is == null) {
+          throw new IllegalStateException("Missing template class " + template);
+        }
+        templates.add(InputStreamUtils.inputStreamToByteArrayOutputStream(is).toByteArray());
+      }
+    }
+
+    final File file = newTempJar();
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest())) {
+      for (int i = 0; i < classCount; i++) {
+        final int index = i % TEMPLATE_CLASSES.length;
+        final String template = TEMPLATE_CLASSES[index];
+        jos.putNextEntry(
+            new JarEntry("synthetic/p" + i + template.substring(template.lastIndexOf('/'))));
+        jos.write(templates.get(index));
+        jos.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Copy a JAR and pad it with a random, stored entry, to reach a given package size while keeping
+   * its simulation classes.
+   *
+   * @param base JAR to copy
+   * @param paddingBytes size of the padding entry
+   * @param seed seed used to generate the padding, for reproducible runs
+   * @return a temporary file, deleted on exit
+   */
+  public static File padded(File base, long paddingBytes, long seed) throws IOException {
+    final File file = newTempJar();
+    try (JarInputStream jis = new JarInputStream(new FileInputStream(base));
+        JarOutputStream jos =
+            new JarOutputStream(
+                new FileOutputStream(file),
+                jis.getManifest() != null ? jis.getManifest() : manifest())) {
+      final byte[] buffer = new byte[8192];
+      JarEntry entry;
+      while ((entry = jis.getNextJarEntry()) != null) {
+        jos.putNextEntry(new JarEntry(entry.getName()));
+        int read;
+        while ((read = jis.read(buffer)) != -1) {
+          jos.write(buffer, 0, read);
+        }
+        jos.closeEntry();
+      }
+
+      if (paddingBytes > 0) {
+        final Random random = new Random(seed);
+        final CRC32 crc = new CRC32();
+        final JarEntry padding = new JarEntry("synthetic/padding.bin");
+        // stored, so that the package size is predictable; this requires the size and CRC upfront
+        padding.setMethod(ZipEntry.STORED);
+        padding.setSize(paddingBytes);
+        padding.setCompressedSize(paddingBytes);
+        for (long remaining = paddingBytes; remaining > 0; remaining -= buffer.length) {
+          random.nextBytes(buffer);
+          crc.update(buffer, 0, (int) Math.min(buffer.length, remaining));
+        }
+        padding.setCrc(crc.getValue());
+        jos.putNextEntry(padding);
+        random.setSeed(seed);
+        for (long remaining = paddingBytes; remaining > 0; remaining -= buffer.length) {
+          random.nextBytes(buffer);
+          jos.write(buffer, 0, (int) Math.min(buffer.length, remaining));
+        }
+        jos.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  private static File newTempJar() throws IOException {
+    final File file = File.createTempFile("gatling-benchmark", ".jar");
+    file.deleteOnExit();
+    return file;
+  }
+
+  private static Manifest manifest() {
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    return manifest;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.benchmarks;
+
+import static io.gatling.plugin.client.json.JsonUtil.JSON_MAPPER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.gatling.plugin.model.HostByPool;
+import io.gatling.plugin.model.MeaningfulTimeWindow;
+import io.gatling.plugin.model.SimulationCreationPayload;
+import java.util.*;
+
+/**
+ * Generates reproducible API payloads, shaped like the responses of the Gatling Enterprise public
+ * API.
+ */
+public final class SyntheticPayloads {
+
+  private SyntheticPayloads() {}
+
+  /** @return a JSON array of simulations, as returned by {@code GET /simulations} */
+  public static String simulations(int count, long seed) throws JsonProcessingException {
+    final Random random = new Random(seed);
+    final List<Map<String, Object>> simulations = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Map<String, Object> simulation = new LinkedHashMap<>();
+      simulation.put("id", uuid(random).toString());
+      simulation.put("teamId", uuid(random).toString());
+      simulation.put("name", "Simulation " + i);
+      simulation.put("className", "computerdatabase.advanced.AdvancedSimulationStep" + i);
+      simulation.put("build", Collections.singletonMap("pkgId", uuid(random).toString()));
+      simulation.put("systemProperties", Collections.singletonMap("gatling.key", "value" + i));
+      simulation.put("ignoreGlobalProperties", false);
+      final Map<String, Object> timeWindow = new LinkedHashMap<>();
+      timeWindow.put("rampUp", 0);
+      timeWindow.put("rampDown", 0);
+      simulation.put("meaningfulTimeWindow", timeWindow);
+      final Map<String, Object> hostByPool = new LinkedHashMap<>();
+      hostByPool.put("size", 1);
+      hostByPool.put("weight", 100);
+      simulation.put("hostsByPool", Collections.singletonMap(uuid(random).toString(), hostByPool));
+      simulation.put("usePoolWeights", false);
+      simulation.put("usePoolDedicatedIps", false);
+      simulations.add(simulation);
+    }
+    return JSON_MAPPER.writeValueAsString(simulations);
+  }
+
+  /** @return a JSON array of packages with their file metadata */
+  public static String packages(int count, long seed) throws JsonProcessingException {
+    final Random random = new Random(seed);
+    final List<Map<String, Object>> packages = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Map<String, Object> pkg = new LinkedHashMap<>();
+      pkg.put("id", uuid(random).toString());
+      pkg.put("teamId", uuid(random).toString());
+      pkg.put("name", "io.gatling.demo:package-" + i);
+      final Map<String, Object> file = new LinkedHashMap<>();
+      file.put("filename", "package-" + i + ".jar");
+      file.put("version", "1.0." + i);
+      file.put("checksum", Base64.getEncoder().encodeToString(uuid(random).toString().getBytes()));
+      pkg.put("file", file);
+      packages.add(pkg);
+    }
+    return JSON_MAPPER.writeValueAsString(packages);
+  }
+
+  /** @return simulation creation payloads, as sent by {@code POST /simulations} */
+  public static List<SimulationCreationPayload> simulationCreationPayloads(int count, long seed) {
+    final Random random = new Random(seed);
+    final List<SimulationCreationPayload> payloads = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      payloads.add(
+          new SimulationCreationPayload(
+              "Simulation " + i,
+              uuid(random),
+              "computerdatabase.advanced.AdvancedSimulationStep" + i,
+              uuid(random),
+              Collections.singletonMap("gatling.key", "value" + i),
+              Collections.emptyMap(),
+              false,
+              new MeaningfulTimeWindow(0, 0),
+              Collections.singletonMap(uuid(random), new HostByPool(1, 100)),
+              false,
+              false));
+    }
+    return payloads;
+  }
+
+  private static UUID uuid(Random random) {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+}
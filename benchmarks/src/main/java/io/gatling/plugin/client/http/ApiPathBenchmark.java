@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.exceptions.ApiCallIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiPathBenchmark {
+
+  private static final ApiPath SIM_PATH = ApiPath.of("simulations");
+  private static final ApiPath.Template CLASSNAME_PATH =
+      ApiPath.template("simulations/{id}/classname");
+
+  private URL baseUrl;
+  private String simulationId;
+
+  @Setup(Level.Trial)
+  public void setup() throws MalformedURLException {
+    baseUrl = new URL("https://cloud.gatling.io/api/public");
+    simulationId = UUID.randomUUID().toString();
+  }
+
+  @Benchmark
+  public URL staticPath() throws ApiCallIOException {
+    return SIM_PATH.buildUrl(baseUrl);
+  }
+
+  @Benchmark
+  public URL pathWithId() throws ApiCallIOException {
+    return SIM_PATH.append(simulationId, "classname").buildUrl(baseUrl);
+  }
+
+  @Benchmark
+  public URL templatePathWithId() throws ApiCallIOException {
+    return CLASSNAME_PATH.expand(simulationId).buildUrl(baseUrl);
+  }
+
+  @Benchmark
+  public URL pathWithQueryParam() throws ApiCallIOException {
+    return SIM_PATH.append("start").addQueryParam("simulation", simulationId).buildUrl(baseUrl);
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * CPU time spent by the uploading thread per GB, with the default {@link UrlConnectionTransport},
+ * which copies the file through user space buffers, and with the {@link ZeroCopyUploadTransport}.
+ * The CPU time includes the time spent in the kernel, e.g. by {@code sendfile}.
+ *
+ * <p>Uploads are sent to a minimal local HTTP server discarding the request bodies: unlike the
+ * {@code com.sun.net.httpserver} based {@code MockEnterpriseServer}, it handles streamed uploads
+ * sent on successive connections reliably.
+ *
+ * <p>Options, all optional, are passed as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code sizeMb}: size of the uploaded file, default {@code 512}
+ *   <li>{@code iterations}: measured uploads per transport, after one warm-up upload, default
+ *       {@code 5}
+ * </ul>
+ */
+public final class UploadTransportBenchmark {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private UploadTransportBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = parseOptions(args);
+    final int sizeMb = Integer.parseInt(options.getOrDefault("sizeMb", "512"));
+    final int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+
+    final File file = randomFile(sizeMb * 1024L * 1024L);
+    System.out.printf("size=%dMB iterations=%d%n", sizeMb, iterations);
+    System.out.printf("%-10s %12s %10s%n", "transport", "cpu(ms/GB)", "MB/s");
+    try (SinkServer server = new SinkServer()) {
+      final URL url =
+          ApiPath.of("api", "public", "artifacts", UUID.randomUUID().toString(), "content")
+              .addQueryParam("filename", file.getName())
+              .buildUrl(new URL("http://127.0.0.1:" + server.port()));
+      run("copy", UrlConnectionTransport.INSTANCE, url, file, iterations);
+      run(
+          "zero-copy",
+          new ZeroCopyUploadTransport(UrlConnectionTransport.INSTANCE),
+          url,
+          file,
+          iterations);
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static void run(String name, HttpTransport transport, URL url, File file, int iterations)
+      throws IOException {
+    // warm-up, not measured
+    upload(transport, url, file);
+
+    long cpuNanos = 0;
+    long wallNanos = 0;
+    for (int i = 0; i < iterations; i++) {
+      final long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+      final long wallStart = System.nanoTime();
+      upload(transport, url, file);
+      wallNanos += System.nanoTime() - wallStart;
+      cpuNanos += THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
+    }
+    final double gigabytes = (double) file.length() * iterations / (1024 * 1024 * 1024);
+    final double megabytes = gigabytes * 1024;
+    System.out.printf(
+        "%-10s %12.1f %10.1f%n",
+        name, cpuNanos / 1_000_000.0 / gigabytes, megabytes / (wallNanos / 1_000_000_000.0));
+  }
+
+  private static void upload(HttpTransport transport, URL url, File file) throws IOException {
+    final TransportResponse response =
+        transport.execute(
+            new TransportRequest("PUT", url)
+                .header("Authorization", "token")
+                .header("Content-Type", "application/octet-stream")
+                .body(RequestBody.ofFile(file)));
+    if (response.code != 200) {
+      throw new IOException("Upload failed with status " + response.code);
+    }
+  }
+
+  private static File randomFile(long size) throws IOException {
+    final File file = File.createTempFile("upload-benchmark", ".jar");
+    file.deleteOnExit();
+    final Random random = new Random(42L);
+    final byte[] buffer = new byte[1024 * 1024];
+    try (OutputStream os = new FileOutputStream(file)) {
+      for (long written = 0; written < size; written += buffer.length) {
+        random.nextBytes(buffer);
+        os.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+      }
+    }
+    return file;
+  }
+
+  /** Answers each request with an empty 200 response, after reading and discarding its body */
+  private static final class SinkServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+
+    private SinkServer() throws IOException {
+      serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      final Thread thread = new Thread(this::serve, "upload-sink");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private int port() {
+      return serverSocket.getLocalPort();
+    }
+
+    private void serve() {
+      final byte[] buffer = new byte[64 * 1024];
+      while (!serverSocket.isClosed()) {
+        try (Socket socket = serverSocket.accept()) {
+          final InputStream in = new BufferedInputStream(socket.getInputStream());
+          long contentLength = 0;
+          String line;
+          while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+              contentLength = Long.parseLong(line.substring(15).trim());
+            }
+          }
+          long remaining = contentLength;
+          int read;
+          while (remaining > 0
+              && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            remaining -= read;
+          }
+          socket
+              .getOutputStream()
+              .write(
+                  "HTTP/1.1 200 OK\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                      .getBytes(StandardCharsets.ISO_8859_1));
+        } catch (IOException e) {
+          // closed, or broken request
+        }
+      }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      final StringBuilder line = new StringBuilder();
+      int b;
+      while ((b = in.read()) != -1 && b != '\n') {
+        if (b != '\r') {
+          line.append((char) b);
+        }
+      }
+      return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+    }
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value, got " + arg);
+      }
+      final int separator = arg.indexOf('=');
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.json;
+
+import static io.gatling.plugin.client.json.JsonUtil.JSON_BINDINGS;
+import static io.gatling.plugin.client.json.JsonUtil.JSON_MAPPER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.gatling.plugin.benchmarks.SyntheticPayloads;
+import io.gatling.plugin.model.Pkg;
+import io.gatling.plugin.model.Simulation;
+import io.gatling.plugin.model.SimulationCreationPayload;
+import io.gatling.plugin.model.SimulationSummary;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+  @Param({"1", "100", "10000"})
+  public int size;
+
+  private String simulationsJson;
+  private String packagesJson;
+  private List<SimulationCreationPayload> simulationPayloads;
+
+  @Setup(Level.Trial)
+  public void setup() throws JsonProcessingException {
+    simulationsJson = SyntheticPayloads.simulations(size, 42L);
+    packagesJson = SyntheticPayloads.packages(size, 42L);
+    simulationPayloads = SyntheticPayloads.simulationCreationPayloads(size, 42L);
+  }
+
+  private static final TypeReference<List<Simulation>> SIMULATIONS_TYPE =
+      new TypeReference<List<Simulation>>() {};
+  private static final TypeReference<List<Pkg>> PACKAGES_TYPE = new TypeReference<List<Pkg>>() {};
+  private static final TypeReference<List<SimulationCreationPayload>> SIMULATION_PAYLOADS_TYPE =
+      new TypeReference<List<SimulationCreationPayload>>() {};
+  // mirrors SimulationsApiRequests#listSimulationSummaries
+  private static final ProjectionReader<SimulationSummary> SIMULATION_SUMMARIES_READER =
+      new ProjectionReader<>(
+          SimulationSummary.class,
+          Arrays.asList("id", "name", "className", "build.pkgId"),
+          values ->
+              new SimulationSummary(
+                  values.uuid(0), values.string(1), values.string(2), values.uuid(3)));
+
+  // the mapper methods resolve the type and look up its (de)serializer on each call
+
+  @Benchmark
+  public List<Simulation> readSimulations() throws JsonProcessingException {
+    return JSON_MAPPER.readValue(simulationsJson, new TypeReference<List<Simulation>>() {});
+  }
+
+  @Benchmark
+  public List<Pkg> readPackages() throws JsonProcessingException {
+    return JSON_MAPPER.readValue(packagesJson, new TypeReference<List<Pkg>>() {});
+  }
+
+  @Benchmark
+  public String writeSimulationPayloads() throws JsonProcessingException {
+    return JSON_MAPPER.writeValueAsString(simulationPayloads);
+  }
+
+  // the prebuilt readers and writers of JsonUtil.JSON_BINDINGS, as used by the API clients
+
+  @Benchmark
+  public List<Simulation> readSimulationsWithReader() throws IOException {
+    final ObjectReader reader = JSON_BINDINGS.reader(SIMULATIONS_TYPE);
+    return reader.readValue(simulationsJson);
+  }
+
+  @Benchmark
+  public List<SimulationSummary> readSimulationSummaries() throws IOException {
+    return SIMULATION_SUMMARIES_READER.readList(
+        JSON_MAPPER.getFactory().createParser(simulationsJson));
+  }
+
+  @Benchmark
+  public List<Pkg> readPackagesWithReader() throws IOException {
+    final ObjectReader reader = JSON_BINDINGS.reader(PACKAGES_TYPE);
+    return reader.readValue(packagesJson);
+  }
+
+  @Benchmark
+  public String writeSimulationPayloadsWithWriter() throws JsonProcessingException {
+    final ObjectWriter writer = JSON_BINDINGS.writer(SIMULATION_PAYLOADS_TYPE.getType());
+    return writer.writeValueAsString(simulationPayloads);
+  }
+}
@@ -17,7 +17,11 @@
 package io.gatling.plugin;
 
 import io.gatling.plugin.exceptions.EnterprisePluginException;
+import io.gatling.plugin.model.BatchSimulationStartResult;
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public interface BatchEnterprisePlugin extends EnterprisePlugin {
@@ -37,4 +41,26 @@ public interface BatchEnterprisePlugin extends EnterprisePlugin {
    * @param file File to upload and run; required
    */
   long uploadPackageWithSimulationId(UUID simulationId, File file) throws EnterprisePluginException;
+
+  /**
+   * Upload file once to the packages of the given simulations, and start all of them. The file is
+   * scanned and checksummed once, and uploaded at most once per package. Each simulation keeps its
+   * configured class if the file contains it, or uses the only simulation class of the file.
+   *
+   * @param simulationIds Required, not empty
+   * @param systemProperties Required (can be an empty map)
+   * @param environmentVariables Required (can be an empty map)
+   * @param file File to upload and run; required
+   * @param parallelism Maximum number of concurrent API calls, at least 1
+   * @return one result per simulation, in the iteration order of simulationIds; failing to start
+   *     one simulation doesn't prevent starting the others
+   * @throws EnterprisePluginException if the file can't be scanned or checksummed
+   */
+  List<BatchSimulationStartResult> uploadPackageAndStartSimulations(
+      Set<UUID> simulationIds,
+      Map<String, String> systemProperties,
+      Map<String, String> environmentVariables,
+      File file,
+      int parallelism)
+      throws EnterprisePluginException;
 }
@@ -24,24 +24,43 @@ import io.gatling.plugin.client.EnterpriseClient;
 import io.gatling.plugin.exceptions.*;
 import io.gatling.plugin.io.PluginLogger;
 import io.gatling.plugin.model.*;
+import io.gatling.plugin.util.ExecutorProvider;
+import io.gatling.plugin.util.LambdaExceptionUtil.FunctionWithExceptions;
+import io.gatling.plugin.util.checksum.PkgChecksum;
 import io.gatling.scanner.SimulationScanResult;
 import java.io.File;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public final class BatchEnterprisePluginClient extends PluginClient
     implements BatchEnterprisePlugin {
 
+  private final ExecutorProvider executorProvider;
+
   public BatchEnterprisePluginClient(EnterpriseClient enterpriseClient, PluginLogger logger) {
+    this(enterpriseClient, logger, ExecutorProvider.virtualThreads());
+  }
+
+  /**
+   * @param executorProvider provides the threads running the concurrent API calls of the batch
+   *     operations
+   */
+  public BatchEnterprisePluginClient(
+      EnterpriseClient enterpriseClient, PluginLogger logger, ExecutorProvider executorProvider) {
     super(enterpriseClient, logger);
+    nonNullParam(executorProvider, "executorProvider");
+    this.executorProvider = executorProvider;
   }
 
   @Override
   public long uploadPackage(UUID packageId, File file) throws EnterprisePluginException {
     nonNullParam(packageId, "packageId");
     nonNullParam(file, "file");
+    enterpriseClient.preConnect();
     final SimulationScanResult scanResult = simulationFullyQualifiedNamesFromFile(file);
     checkSimulationByteCodeCompatibility(scanResult.getHighestJavaVersionClass());
     return uploadPackageWithChecksum(packageId, file);
@@ -77,6 +96,80 @@ public final class BatchEnterprisePluginClient extends PluginClient
 
     uploadPackageWithChecksum(simulation.pkgId, file);
 
+    return startExistingSimulation(simulation, className, systemProperties, environmentVariables);
+  }
+
+  @Override
+  public List<BatchSimulationStartResult> uploadPackageAndStartSimulations(
+      Set<UUID> simulationIds,
+      Map<String, String> systemProperties,
+      Map<String, String> environmentVariables,
+      File file,
+      int parallelism)
+      throws EnterprisePluginException {
+    nonNullParam(simulationIds, "simulationIds");
+    nonNullParam(systemProperties, "systemProperties");
+    nonNullParam(environmentVariables, "environmentVariables");
+    nonNullParam(file, "file");
+    if (simulationIds.isEmpty()) {
+      throw new IllegalArgumentException("Parameter 'simulationIds' must not be empty");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parameter 'parallelism' must be at least 1");
+    }
+
+    final List<String> discoveredSimulationClasses =
+        simulationClassesFromCompatibleByteCodeFile(file);
+
+    final ExecutorService executor =
+        executorProvider.newExecutor(
+            "gatling-enterprise-batch", Math.min(parallelism, simulationIds.size()));
+    try {
+      final Map<UUID, Outcome<Simulation>> simulations =
+          applyAll(executor, simulationIds, enterpriseClient::getSimulation);
+
+      final Set<UUID> pkgIds = new LinkedHashSet<>();
+      for (Outcome<Simulation> simulation : simulations.values()) {
+        if (simulation.failure == null) {
+          pkgIds.add(simulation.value.pkgId);
+        }
+      }
+      final String checksum = pkgIds.isEmpty() ? null : checksum(file);
+      final Map<UUID, Outcome<Boolean>> uploads =
+          applyAll(executor, pkgIds, pkgId -> uploadPackageWithChecksum(pkgId, file, checksum));
+
+      final Map<UUID, Outcome<SimulationStartResult>> starts =
+          applyAll(
+              executor,
+              simulationIds,
+              simulationId -> {
+                final Simulation simulation = simulations.get(simulationId).get();
+                uploads.get(simulation.pkgId).get();
+                final String className =
+                    simulationClassName(simulation, discoveredSimulationClasses, null);
+                return startExistingSimulation(
+                    simulation, className, systemProperties, environmentVariables);
+              });
+
+      final List<BatchSimulationStartResult> results = new ArrayList<>(simulationIds.size());
+      for (Map.Entry<UUID, Outcome<SimulationStartResult>> start : starts.entrySet()) {
+        results.add(
+            start.getValue().failure == null
+                ? BatchSimulationStartResult.started(start.getValue().value)
+                : BatchSimulationStartResult.failed(start.getKey(), start.getValue().failure));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private SimulationStartResult startExistingSimulation(
+      Simulation simulation,
+      String className,
+      Map<String, String> systemProperties,
+      Map<String, String> environmentVariables)
+      throws EnterprisePluginException {
     if (!simulation.className.equals(className)) {
       logger.info(
           String.format(
@@ -86,10 +179,89 @@ public final class BatchEnterprisePluginClient extends PluginClient
     }
 
     final RunSummary runSummary =
-        enterpriseClient.startSimulation(simulationId, systemProperties, environmentVariables);
+        enterpriseClient.startSimulation(simulation.id, systemProperties, environmentVariables);
     return new SimulationStartResult(simulation, runSummary, false);
   }
 
+  private static String checksum(File file) throws EnterprisePluginException {
+    try {
+      return PkgChecksum.computeChecksum(file);
+    } catch (IOException e) {
+      throw new ApiCallIOException(e);
+    }
+  }
+
+  /** @return whether the file was uploaded, false if the package was already up to date */
+  private boolean uploadPackageWithChecksum(UUID packageId, File file, String checksum)
+      throws EnterprisePluginException {
+    if (enterpriseClient.uploadPackageWithChecksum(packageId, file, checksum) == -1) {
+      logger.info("No code changes detected for package " + packageId + ", skipping upload");
+      return false;
+    }
+    logger.info("Package " + packageId + " uploaded");
+    return true;
+  }
+
+  /** Value or failure of a concurrent API call */
+  private static final class Outcome<T> {
+    private final T value;
+    private final EnterprisePluginException failure;
+
+    private Outcome(T value, EnterprisePluginException failure) {
+      this.value = value;
+      this.failure = failure;
+    }
+
+    private T get() throws EnterprisePluginException {
+      if (failure != null) {
+        throw failure;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Apply the function to each key on the executor, and wait for all of them to complete
+   *
+   * @return the outcome for each key, in the iteration order of the keys
+   */
+  private static <K, V> Map<K, Outcome<V>> applyAll(
+      ExecutorService executor,
+      Collection<K> keys,
+      FunctionWithExceptions<K, V, EnterprisePluginException> function)
+      throws EnterprisePluginException {
+    final Map<K, Future<Outcome<V>>> futures = new LinkedHashMap<>();
+    for (K key : keys) {
+      futures.put(
+          key,
+          executor.submit(
+              () -> {
+                try {
+                  return new Outcome<>(function.apply(key), null);
+                } catch (EnterprisePluginException e) {
+                  return new Outcome<>(null, e);
+                }
+              }));
+    }
+
+    final Map<K, Outcome<V>> outcomes = new LinkedHashMap<>();
+    for (Map.Entry<K, Future<Outcome<V>>> future : futures.entrySet()) {
+      try {
+        outcomes.put(future.getKey(), future.getValue().get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ApiCallIOException(new InterruptedIOException("Batch was interrupted"));
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw (Error) cause;
+      }
+    }
+    return outcomes;
+  }
+
   @Override
   public SimulationStartResult createAndStartSimulation(
       UUID teamId,
@@ -16,6 +16,8 @@
 
 package io.gatling.plugin;
 
+import io.gatling.plugin.util.JvmErgonomics;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -39,24 +41,46 @@ public final class GatlingConstants {
   }
 
   static {
+    List<String> base = baseJvmOptions(JAVA_MAJOR_VERSION);
+    DEFAULT_JVM_OPTIONS_BASE = Collections.unmodifiableList(base);
+
+    List<String> gatlingDefaultJvmOptions = new ArrayList<>(base);
+    gatlingDefaultJvmOptions.add("-Xmx1G");
+    DEFAULT_JVM_OPTIONS_GATLING = Collections.unmodifiableList(gatlingDefaultJvmOptions);
+  }
+
+  private static List<String> baseJvmOptions(int javaMajorVersion) {
     List<String> base = new ArrayList<>();
     base.add("-server");
     base.add("-XX:+HeapDumpOnOutOfMemoryError");
     base.add("-XX:MaxInlineLevel=20");
     base.add("-XX:MaxTrivialSize=12");
-    if (JAVA_MAJOR_VERSION < 9) {
+    if (javaMajorVersion < 9) {
       base.add("-XX:+UseG1GC");
     }
-    if (JAVA_MAJOR_VERSION < 11) {
+    if (javaMajorVersion < 11) {
       base.add("-XX:+ParallelRefProcEnabled");
     }
-    if (JAVA_MAJOR_VERSION < 15) {
+    if (javaMajorVersion < 15) {
       base.add("-XX:-UseBiasedLocking");
     }
-    DEFAULT_JVM_OPTIONS_BASE = Collections.unmodifiableList(base);
+    return base;
+  }
 
-    List<String> gatlingDefaultJvmOptions = new ArrayList<>(base);
-    gatlingDefaultJvmOptions.add("-Xmx1G");
-    DEFAULT_JVM_OPTIONS_GATLING = Collections.unmodifiableList(gatlingDefaultJvmOptions);
+  /**
+   * Alternative to {@link #DEFAULT_JVM_OPTIONS_GATLING} sizing the heap, the direct memory, the GC
+   * and the processor count after the resources of the host, see {@link JvmErgonomics}. All the
+   * options depend on the version of the given java executable rather than on the current one.
+   *
+   * @param javaExecutable the java executable of the forked JVM
+   * @param userOptions the JVM options configured by the user, which win over the ergonomic ones
+   * @return the JVM options for a Gatling run, including the user ones
+   */
+  public static List<String> ergonomicJvmOptionsGatling(
+      File javaExecutable, List<String> userOptions) {
+    List<String> options = baseJvmOptions(JvmErgonomics.javaMajorVersion(javaExecutable));
+    options.addAll(JvmErgonomics.jvmOptions(javaExecutable, userOptions));
+    options.addAll(userOptions);
+    return options;
   }
 }
@@ -27,7 +27,6 @@ import io.gatling.plugin.util.LambdaExceptionUtil.ConsumerWithExceptions;
 import java.io.File;
 import java.util.*;
 import java.util.Collections;
-import java.util.stream.Collectors;
 
 public final class InteractiveEnterprisePluginClient extends PluginClient
     implements InteractiveEnterprisePlugin {
@@ -81,7 +80,7 @@ public final class InteractiveEnterprisePluginClient extends PluginClient
 
     List<String> discoveredSimulationClasses = simulationClassesFromCompatibleByteCodeFile(file);
 
-    List<Simulation> simulations = enterpriseClient.getSimulations();
+    List<SimulationSummary> simulations = enterpriseClient.getSimulationSummaries();
     boolean createSimulation = simulations.isEmpty() || chooseIfCreateSimulation();
 
     if (createSimulation) {
@@ -101,9 +100,11 @@ public final class InteractiveEnterprisePluginClient extends PluginClient
       if (simulations.isEmpty()) {
         throw new EmptyChoicesException("simulations");
       }
-      final Simulation simulation =
+      final SimulationSummary chosenSimulation =
           inputChoice.inputFromList(
               simulations, Show::simulation, Comparator.comparing(s -> s.name));
+      // the summaries lack some fields of the simulation, e.g. its team
+      final Simulation simulation = enterpriseClient.getSimulation(chosenSimulation.id);
 
       return startSimulation(
           simulation,
@@ -179,7 +180,7 @@ public final class InteractiveEnterprisePluginClient extends PluginClient
       List<String> discoveredSimulationClasses,
       UUID configuredPackageId,
       File packageFile,
-      List<Simulation> existingSimulations,
+      List<SimulationSummary> existingSimulations,
       Map<String, String> systemProperties,
       Map<String, String> environmentVariables)
       throws EnterprisePluginException, EmptyChoicesException {
@@ -253,12 +254,12 @@ public final class InteractiveEnterprisePluginClient extends PluginClient
   }
 
   private String chooseSimulationName(
-      String simulationClass, List<Simulation> existingSimulations) {
+      String simulationClass, List<SimulationSummary> existingSimulations) {
     final String defaultSimulationName = simulationNameFromClassName(simulationClass);
-    final List<String> existingSimulationNames =
-        existingSimulations.stream()
-            .map(simulation -> simulation.name)
-            .collect(Collectors.toList());
+    final Set<String> existingSimulationNames = new HashSet<>(existingSimulations.size() * 2);
+    for (SimulationSummary simulation : existingSimulations) {
+      existingSimulationNames.add(simulation.name);
+    }
 
     final ConsumerWithExceptions<String, IllegalArgumentException> validator =
         name -> {
@@ -334,8 +335,10 @@ public final class InteractiveEnterprisePluginClient extends PluginClient
       throws EnterprisePluginException {
     final String defaultPackageName =
         artifactId != null ? (groupId != null ? groupId + ":" + artifactId : artifactId) : null;
-    final Set<String> existingPackageNames =
-        existingPackages.stream().map(p -> p.name).collect(Collectors.toSet());
+    final Set<String> existingPackageNames = new HashSet<>(existingPackages.size() * 2);
+    for (PkgIndex pkg : existingPackages) {
+      existingPackageNames.add(pkg.name);
+    }
 
     final ConsumerWithExceptions<String, IllegalArgumentException> validator =
         name -> {
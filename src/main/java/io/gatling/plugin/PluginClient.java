@@ -64,6 +64,7 @@ abstract class PluginClient {
 
   protected List<String> simulationClassesFromCompatibleByteCodeFile(File file)
       throws EnterprisePluginException {
+    enterpriseClient.preConnect();
     final SimulationScanResult scanResult = simulationFullyQualifiedNamesFromFile(file);
     checkSimulationByteCodeCompatibility(scanResult.getHighestJavaVersionClass());
     return scanResult.getSimulationClasses();
@@ -24,6 +24,10 @@ public final class Show {
     return String.format("Simulation '%s', id='%s'", simulation.name, simulation.id);
   }
 
+  static String simulation(SimulationSummary simulation) {
+    return String.format("Simulation '%s', id='%s'", simulation.name, simulation.id);
+  }
+
   static String team(Team team) {
     return String.format("Team '%s', id='%s'", team.name, team.id);
   }
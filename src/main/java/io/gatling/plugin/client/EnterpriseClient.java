@@ -19,6 +19,7 @@ package io.gatling.plugin.client;
 import io.gatling.plugin.exceptions.*;
 import io.gatling.plugin.model.*;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -36,10 +37,32 @@ import java.util.UUID;
  */
 public interface EnterpriseClient {
 
+  /**
+   * Opens a connection to the server in the background, used by the next call, so that a long local
+   * operation, e.g. scanning the package, isn't followed by the connection setup. Does nothing
+   * unless enabled by the implementation; never fails.
+   */
+  default void preConnect() {}
+
   ServerInformation getServerInformation() throws EnterprisePluginException;
 
   List<Simulation> getSimulations() throws EnterprisePluginException;
 
+  /**
+   * Lighter than {@link #getSimulations()} when overridden to only read the fields of the summaries
+   * from the response; maps the full simulations otherwise
+   */
+  default List<SimulationSummary> getSimulationSummaries() throws EnterprisePluginException {
+    final List<Simulation> simulations = getSimulations();
+    final List<SimulationSummary> summaries = new ArrayList<>(simulations.size());
+    for (Simulation simulation : simulations) {
+      summaries.add(
+          new SimulationSummary(
+              simulation.id, simulation.name, simulation.className, simulation.pkgId));
+    }
+    return summaries;
+  }
+
   Simulation getSimulation(UUID simulationId) throws EnterprisePluginException;
 
   List<Team> getTeams() throws EnterprisePluginException;
@@ -76,6 +99,22 @@ public interface EnterpriseClient {
    */
   long uploadPackageWithChecksum(UUID packageId, File file) throws EnterprisePluginException;
 
+  /**
+   * Same as {@link #uploadPackageWithChecksum(UUID, File)}, when the checksum of the file is
+   * already known, e.g. when uploading it to several packages. Uploads the file unconditionally
+   * unless overridden.
+   *
+   * @param packageId Required
+   * @param file Required
+   * @param precomputedChecksum Required, checksum of the file, see {@link
+   *     io.gatling.plugin.util.checksum.PkgChecksum#computeChecksum(File)}
+   * @return file size if uploaded, -1 when checksum are equals
+   */
+  default long uploadPackageWithChecksum(UUID packageId, File file, String precomputedChecksum)
+      throws EnterprisePluginException {
+    return uploadPackage(packageId, file);
+  }
+
   /**
    * @param simulationId Required
    * @param className Required
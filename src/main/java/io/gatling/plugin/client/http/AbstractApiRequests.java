@@ -16,46 +16,50 @@
 
 package io.gatling.plugin.client.http;
 
+import static io.gatling.plugin.client.json.JsonUtil.JSON_BINDINGS;
 import static io.gatling.plugin.client.json.JsonUtil.JSON_MAPPER;
+import static io.gatling.plugin.client.json.JsonUtil.SMILE_BINDINGS;
+import static io.gatling.plugin.client.json.JsonUtil.SMILE_MAPPER;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.gatling.plugin.client.json.ProjectionReader;
 import io.gatling.plugin.exceptions.*;
-import io.gatling.plugin.util.InputStreamUtils;
 import io.gatling.plugin.util.LambdaExceptionUtil;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 abstract class AbstractApiRequests {
 
   private static final String HTTP_GET_METHOD = "GET";
   private static final String HTTP_POST_METHOD = "POST";
   private static final String HTTP_PUT_METHOD = "PUT";
+  private static final String HTTP_HEAD_METHOD = "HEAD";
 
   private static final String AUTHORIZATION_HEADER = "Authorization";
   private static final String ACCEPT_HEADER = "Accept";
   protected static final String CONTENT_TYPE_HEADER = "Content-Type";
 
-  private static final String CONNECTION_HEADER = "Connection";
-
   protected static final String OCTET_STREAM_MEDIA_TYPE = "application/octet-stream";
-  protected static final String JSON_MEDIA_TYPE = "application/json";
-
-  protected static final String CLOSE = "close";
+  protected static final String JSON_MEDIA_TYPE = PayloadFormat.JSON.mediaType;
 
-  private static final int DEFAULT_TIMEOUT_MS = 10_000;
+  // base URLs of the servers which answered 406 Not Acceptable to a binary payload format
+  private static final Set<String> JSON_ONLY_SERVERS = ConcurrentHashMap.newKeySet();
 
   protected final URL baseUrl;
   protected final String token;
+  private final HttpTransport transport;
 
-  AbstractApiRequests(URL baseUrl, String token) {
+  AbstractApiRequests(URL baseUrl, String token, HttpTransport transport) {
     this.baseUrl = baseUrl;
     this.token = token;
+    this.transport = transport;
   }
 
   protected HttpResponse get(
@@ -63,7 +67,7 @@ abstract class AbstractApiRequests {
       LambdaExceptionUtil.ConsumerWithExceptions<HttpResponse, EnterprisePluginException>
           validateResponse)
       throws EnterprisePluginException {
-    return executeRequest(HTTP_GET_METHOD, path, connection -> {}, validateResponse);
+    return executeRequest(HTTP_GET_METHOD, path, request -> {}, validateResponse);
   }
 
   protected <T> T getJson(
@@ -76,7 +80,8 @@ abstract class AbstractApiRequests {
   }
 
   protected <T> T getJson(ApiPath path, Class<T> valueType) throws EnterprisePluginException {
-    return getJson(path, valueType, response -> {});
+    return coalesceGet(
+        path, valueType.getName(), () -> parseJsonResponse(get(path, response -> {}), valueType));
   }
 
   protected <T> T getJson(
@@ -85,17 +90,71 @@ abstract class AbstractApiRequests {
       LambdaExceptionUtil.ConsumerWithExceptions<HttpResponse, EnterprisePluginException>
           validateResponse)
       throws EnterprisePluginException {
-    return parseJsonResponse(get(path, validateResponse), valueTypeRef);
+    return parseJsonResponse(get(path, validateResponse), valueTypeRef.getType());
   }
 
   protected <T> T getJson(ApiPath path, TypeReference<T> valueTypeRef)
       throws EnterprisePluginException {
-    return getJson(path, valueTypeRef, response -> {});
+    return coalesceGet(
+        path,
+        valueTypeRef.getType().getTypeName(),
+        () -> parseJsonResponse(get(path, response -> {}), valueTypeRef.getType()));
+  }
+
+  /**
+   * Reads only the fields of the given projection from a listing response, see {@link
+   * ProjectionReader}
+   */
+  protected <T> List<T> getJsonProjections(ApiPath path, ProjectionReader<T> projectionReader)
+      throws EnterprisePluginException {
+    return coalesceGet(
+        path,
+        "List<" + projectionReader.type().getName() + ">",
+        () -> parseJsonProjections(get(path, response -> {}), projectionReader));
+  }
+
+  /**
+   * Whether or not identical concurrent GET requests on the given path share a single call and its
+   * parsed result, see {@link SingleFlight}. Endpoints whose results must not be shared can opt out
+   * by overriding this method. Requests with a custom response validation are never coalesced, as
+   * the validation, e.g. the exception thrown for a 404, isn't part of the request identity.
+   */
+  protected boolean isCoalescedGet(ApiPath path) {
+    return true;
+  }
+
+  private <T> T coalesceGet(
+      ApiPath path,
+      String resultType,
+      LambdaExceptionUtil.SupplierWithExceptions<T, EnterprisePluginException> call)
+      throws EnterprisePluginException {
+    if (!isCoalescedGet(path)) {
+      return call.get();
+    }
+    // the token is part of the key: the same URL may return different results for other users
+    final String key =
+        token + '\n' + HTTP_GET_METHOD + ' ' + path.buildUrlString(baseUrl) + '\n' + resultType;
+    return SingleFlight.execute(key, call);
+  }
+
+  /**
+   * Opens a connection to the server, used by the next request, see {@link
+   * HttpTransport#preConnect(TransportRequest)}. Failures are ignored: the next request then opens
+   * its own connection.
+   */
+  protected void preConnect(ApiPath path) {
+    try {
+      transport.preConnect(
+          new TransportRequest(HTTP_HEAD_METHOD, path.buildUrl(baseUrl))
+              .header(AUTHORIZATION_HEADER, token));
+    } catch (IOException | ApiCallIOException e) {
+      // best effort
+    }
   }
 
   protected HttpResponse post(
       ApiPath path,
-      LambdaExceptionUtil.ConsumerWithExceptions<HttpURLConnection, EnterprisePluginException>
+      LambdaExceptionUtil.ConsumerWithExceptions<TransportRequest, EnterprisePluginException>
           beforeRequest,
       LambdaExceptionUtil.ConsumerWithExceptions<HttpResponse, EnterprisePluginException>
           validateResponse)
@@ -111,8 +170,7 @@ abstract class AbstractApiRequests {
           validateResponse)
       throws EnterprisePluginException {
     return parseJsonResponse(
-        post(path, connection -> writeJsonRequestBody(connection, body), validateResponse),
-        valueType);
+        post(path, request -> writeJsonRequestBody(request, body), validateResponse), valueType);
   }
 
   protected <T> T postJson(ApiPath path, Object body, Class<T> valueType)
@@ -122,7 +180,7 @@ abstract class AbstractApiRequests {
 
   protected HttpResponse put(
       ApiPath path,
-      LambdaExceptionUtil.ConsumerWithExceptions<HttpURLConnection, EnterprisePluginException>
+      LambdaExceptionUtil.ConsumerWithExceptions<TransportRequest, EnterprisePluginException>
           beforeRequest,
       LambdaExceptionUtil.ConsumerWithExceptions<HttpResponse, EnterprisePluginException>
           validateResponse)
@@ -138,8 +196,7 @@ abstract class AbstractApiRequests {
           validateResponse)
       throws EnterprisePluginException {
     return parseJsonResponse(
-        put(path, connection -> writeJsonRequestBody(connection, body), validateResponse),
-        valueType);
+        put(path, request -> writeJsonRequestBody(request, body), validateResponse), valueType);
   }
 
   protected <T> T putJson(ApiPath path, Object body, Class<T> valueType)
@@ -150,71 +207,71 @@ abstract class AbstractApiRequests {
   private HttpResponse executeRequest(
       String method,
       ApiPath path,
-      LambdaExceptionUtil.ConsumerWithExceptions<HttpURLConnection, EnterprisePluginException>
+      LambdaExceptionUtil.ConsumerWithExceptions<TransportRequest, EnterprisePluginException>
           beforeRequest,
       LambdaExceptionUtil.ConsumerWithExceptions<HttpResponse, EnterprisePluginException>
           validateResponse)
       throws EnterprisePluginException {
+    final boolean isGet = HTTP_GET_METHOD.equals(method);
+    final PayloadFormat acceptedFormat = acceptedFormat();
+    final URL url = path.buildUrl(baseUrl);
+    final String cacheScope = token + '\n' + baseUrl + '\n' + path.resource();
+    // the response varies with the accepted format
+    final String cacheRequest = acceptedFormat.mediaType + ' ' + path.buildUrlString(baseUrl);
+    final HttpResponseCache.Entry cached =
+        isGet ? HttpResponseCache.INSTANCE.lookup(cacheScope, cacheRequest) : null;
     try {
-      final HttpURLConnection connection = openConnection(method, path.buildUrl(baseUrl));
-
-      beforeRequest.accept(connection);
-      connection.connect();
+      final TransportRequest request =
+          new TransportRequest(method, url)
+              .header(AUTHORIZATION_HEADER, token)
+              .header(ACCEPT_HEADER, acceptedFormat.acceptHeader())
+              .header(ContentEncoding.ACCEPT_ENCODING_HEADER, ContentEncoding.SUPPORTED_ENCODINGS);
+      if (cached != null) {
+        cached.addValidators(request);
+      }
+      beforeRequest.accept(request);
 
+      final TransportResponse transportResponse;
       try {
-        final HttpResponse response = readResponse(connection);
-
-        validateResponse.accept(response);
-        defaultValidateResponse(response);
-        return response;
+        transportResponse = transport.execute(request);
       } finally {
-        connection.disconnect();
+        if (!isGet) {
+          // even a failed call may have modified the resource
+          HttpResponseCache.INSTANCE.invalidate(cacheScope);
+        }
       }
-    } catch (IOException e) {
-      throw new ApiCallIOException(e);
-    }
-  }
 
-  private HttpURLConnection openConnection(String method, URL url) throws IOException {
-    final URLConnection urlConnection = url.openConnection();
-    if (urlConnection instanceof HttpURLConnection) {
-      final HttpURLConnection connection = (HttpURLConnection) urlConnection;
-      connection.setRequestMethod(method);
-      connection.setRequestProperty(AUTHORIZATION_HEADER, token);
-      connection.setRequestProperty(ACCEPT_HEADER, JSON_MEDIA_TYPE);
-      connection.setRequestProperty(AUTHORIZATION_HEADER, token);
-      connection.setRequestProperty(CONNECTION_HEADER, CLOSE);
-      connection.setConnectTimeout(DEFAULT_TIMEOUT_MS);
-      connection.setReadTimeout(DEFAULT_TIMEOUT_MS);
-      return connection;
-    } else {
-      throw new IllegalStateException(
-          "Expected an HttpURLConnection, got " + urlConnection.getClass().getName());
-    }
-  }
+      if (transportResponse.code == HttpURLConnection.HTTP_NOT_ACCEPTABLE
+          && acceptedFormat != PayloadFormat.JSON) {
+        // the server strictly doesn't support the binary format, stick to JSON from now on
+        JSON_ONLY_SERVERS.add(baseUrl.toString());
+        return executeRequest(method, path, beforeRequest, validateResponse);
+      }
 
-  private InputStream getRealInputStream(HttpURLConnection connection) {
-    try {
-      return connection.getInputStream();
+      HttpResponse response =
+          HttpResponse.of(
+              transportResponse.code,
+              PayloadFormat.ofContentType(transportResponse.header(CONTENT_TYPE_HEADER)),
+              transportResponse.body);
+      if (isGet) {
+        if (cached != null && response.code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+          response = cached.toResponse();
+        } else if (response.code == HttpURLConnection.HTTP_OK) {
+          HttpResponseCache.INSTANCE.store(cacheScope, cacheRequest, transportResponse);
+        }
+      }
+
+      validateResponse.accept(response);
+      defaultValidateResponse(response);
+      return response;
     } catch (IOException e) {
-      return connection.getErrorStream();
+      throw new ApiCallIOException(e);
     }
   }
 
-  private HttpResponse readResponse(HttpURLConnection connection) throws IOException {
-    int status = connection.getResponseCode();
-    if (status < 0) {
-      throw new IOException("Response could not be parsed as HTTP");
-    }
-
-    try (final InputStream is = getRealInputStream(connection)) {
-      if (is == null) {
-        return new HttpResponse(status, "");
-      } else {
-        return new HttpResponse(
-            status, InputStreamUtils.inputStreamToString(is, StandardCharsets.UTF_8));
-      }
-    }
+  private PayloadFormat acceptedFormat() {
+    final PayloadFormat preferredFormat = PayloadFormat.fromSystemProperties();
+    return JSON_ONLY_SERVERS.contains(baseUrl.toString()) ? PayloadFormat.JSON : preferredFormat;
   }
 
   private void defaultValidateResponse(HttpResponse response) throws EnterprisePluginException {
@@ -232,32 +289,35 @@ abstract class AbstractApiRequests {
     }
   }
 
-  private <T> T parseJsonResponse(HttpResponse response, Class<T> valueType) {
+  private <T> T parseJsonResponse(HttpResponse response, Type valueType) {
     try {
-      return JSON_MAPPER.readValue(response.body, valueType);
-    } catch (JsonProcessingException e) {
+      return response.smileBody != null
+          ? SMILE_BINDINGS.reader(valueType).readValue(response.smileBody)
+          : JSON_BINDINGS.reader(valueType).readValue(response.body);
+    } catch (IOException e) {
       throw new JsonResponseProcessingException(e);
     }
   }
 
-  private <T> T parseJsonResponse(HttpResponse response, TypeReference<T> valueTypeRef) {
-    try {
-      return JSON_MAPPER.readValue(response.body, valueTypeRef);
-    } catch (JsonProcessingException e) {
+  private <T> List<T> parseJsonProjections(
+      HttpResponse response, ProjectionReader<T> projectionReader) {
+    try (JsonParser parser =
+        response.smileBody != null
+            ? SMILE_MAPPER.getFactory().createParser(response.smileBody)
+            : JSON_MAPPER.getFactory().createParser(response.body)) {
+      return projectionReader.readList(parser);
+    } catch (IOException e) {
       throw new JsonResponseProcessingException(e);
     }
   }
 
-  private void writeJsonRequestBody(HttpURLConnection connection, Object body)
-      throws ApiCallIOException {
-    connection.setRequestProperty(CONTENT_TYPE_HEADER, JSON_MEDIA_TYPE);
-    connection.setDoOutput(true);
-    try (final OutputStream os = connection.getOutputStream()) {
-      JSON_MAPPER.writeValue(os, body);
+  private void writeJsonRequestBody(TransportRequest request, Object body) {
+    try {
+      request
+          .header(CONTENT_TYPE_HEADER, JSON_MEDIA_TYPE)
+          .body(RequestBody.ofBytes(JSON_BINDINGS.writer(body.getClass()).writeValueAsBytes(body)));
     } catch (JsonProcessingException e) {
       throw new JsonRequestProcessingException(e);
-    } catch (IOException e) {
-      throw new ApiCallIOException(e);
     }
   }
 }
@@ -25,77 +25,169 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Immutable path of an API call, relative to the API base URL.
+ *
+ * <p>Segments and query parameters are encoded once, when the path is built, and the URL built for
+ * a base URL is kept, so that constant paths don't build their URL again on each call. Paths with
+ * variable segments, e.g. IDs, are best built from a precompiled {@link Template}.
+ */
 class ApiPath {
 
+  private static final ApiPath EMPTY =
+      new ApiPath(Collections.emptyList(), "", Collections.emptyMap(), "");
+
+  // most calls are built for the same base URL instance, see AbstractApiRequests
+  private static volatile BuiltUrl lastBasePrefix;
+
   static ApiPath of(String... initialSegments) {
-    return new ApiPath().append(initialSegments);
+    return EMPTY.append(initialSegments);
+  }
+
+  /**
+   * @param template path segments separated by '/', where variable segments are placeholders
+   *     between braces, e.g. <code>simulations/{id}/classname</code>
+   */
+  static Template template(String template) {
+    return new Template(template);
   }
 
   private final List<String> segments;
+  private final String encodedPath;
   private final Map<String, String> queryParams;
+  private final String encodedQuery;
+  private volatile BuiltUrl builtUrl;
 
-  private ApiPath() {
-    this(Collections.emptyList(), Collections.emptyMap());
-  }
-
-  private ApiPath(List<String> segments, Map<String, String> queryParams) {
+  private ApiPath(
+      List<String> segments,
+      String encodedPath,
+      Map<String, String> queryParams,
+      String encodedQuery) {
     this.segments = segments;
+    this.encodedPath = encodedPath;
     this.queryParams = queryParams;
+    this.encodedQuery = encodedQuery;
   }
 
   URL buildUrl(URL baseUrl) throws ApiCallIOException {
+    return builtUrl(baseUrl).url;
+  }
+
+  /** @return the same as {@link #buildUrl(URL)}, as a string */
+  String buildUrlString(URL baseUrl) throws ApiCallIOException {
+    return builtUrl(baseUrl).spec;
+  }
+
+  private BuiltUrl builtUrl(URL baseUrl) throws ApiCallIOException {
+    final BuiltUrl cached = builtUrl;
+    if (cached != null && cached.baseUrl == baseUrl) {
+      return cached;
+    }
+
     // new URL(baseUrl, spec) has different corner cases, depending e.g. on whether or not the
     // baseUrl ends with a '/', etc. For our purpose it's easier to just build the new URL
     // ourselves.
-
-    final String base = baseUrl.toString();
-    final String path = encodePath(String.join("/", segments));
-    final String queryString =
-        queryParams.entrySet().stream()
-            .map(
-                entry ->
-                    encodeQueryParam(entry.getKey()) + "=" + encodeQueryParam(entry.getValue()))
-            .collect(Collectors.joining("&"));
-
-    final StringBuilder builder = new StringBuilder(base);
-    if (base.endsWith("/")) {
-      builder.deleteCharAt(base.length() - 1);
+    final String base = basePrefix(baseUrl);
+    final StringBuilder builder =
+        new StringBuilder(base.length() + encodedPath.length() + encodedQuery.length() + 2)
+            .append(base);
+    if (!encodedPath.isEmpty()) {
+      builder.append('/').append(encodedPath);
     }
-    if (!path.isEmpty()) {
-      builder.append("/").append(path);
-    }
-    if (!queryString.isEmpty()) {
-      builder.append("?").append(queryString);
+    if (!encodedQuery.isEmpty()) {
+      builder.append('?').append(encodedQuery);
     }
 
+    final String spec = builder.toString();
     try {
-      return new URL(builder.toString());
+      final BuiltUrl built = new BuiltUrl(baseUrl, spec, new URL(spec));
+      builtUrl = built;
+      return built;
     } catch (MalformedURLException e) {
       throw new ApiCallIOException(e);
     }
   }
 
+  private static String basePrefix(URL baseUrl) {
+    final BuiltUrl cached = lastBasePrefix;
+    if (cached != null && cached.baseUrl == baseUrl) {
+      return cached.spec;
+    }
+    final String base = baseUrl.toString();
+    final String prefix = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    lastBasePrefix = new BuiltUrl(baseUrl, prefix, null);
+    return prefix;
+  }
+
+  /** @return the API resource targeted by this path, i.e. its first segment */
+  String resource() {
+    return segments.isEmpty() ? "" : segments.get(0);
+  }
+
   ApiPath append(String... newSegments) {
+    if (newSegments.length == 0) {
+      return this;
+    }
     final List<String> updatedSegments = new ArrayList<>(segments.size() + newSegments.length);
     updatedSegments.addAll(segments);
-    updatedSegments.addAll(Arrays.asList(newSegments));
-    return new ApiPath(Collections.unmodifiableList(updatedSegments), queryParams);
+    final StringBuilder updatedPath = new StringBuilder(encodedPath);
+    for (String segment : newSegments) {
+      updatedSegments.add(segment);
+      if (updatedPath.length() > 0) {
+        updatedPath.append('/');
+      }
+      updatedPath.append(encodePathSegment(segment));
+    }
+    return new ApiPath(
+        Collections.unmodifiableList(updatedSegments),
+        updatedPath.toString(),
+        queryParams,
+        encodedQuery);
   }
 
   ApiPath addQueryParam(String key, String value) {
     final Map<String, String> newQueryParams = new HashMap<>(queryParams);
     newQueryParams.put(key, value);
-    return new ApiPath(segments, Collections.unmodifiableMap(newQueryParams));
+    final StringBuilder newQuery = new StringBuilder();
+    for (Map.Entry<String, String> entry : newQueryParams.entrySet()) {
+      if (newQuery.length() > 0) {
+        newQuery.append('&');
+      }
+      newQuery
+          .append(encodeQueryParam(entry.getKey()))
+          .append('=')
+          .append(encodeQueryParam(entry.getValue()));
+    }
+    return new ApiPath(
+        segments, encodedPath, Collections.unmodifiableMap(newQueryParams), newQuery.toString());
+  }
+
+  private static String encodePathSegment(String s) {
+    // e.g. IDs only contain unreserved characters, which don't need any encoding
+    for (int i = 0; i < s.length(); i++) {
+      if (!isUnreserved(s.charAt(i))) {
+        return encodePath(s);
+      }
+    }
+    return s;
+  }
+
+  private static boolean isUnreserved(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '-'
+        || c == '.'
+        || c == '_'
+        || c == '~';
   }
 
-  private String encodePath(String s) {
+  private static String encodePath(String s) {
     try {
       // Don't use java.net.URLEncoder: it encodes for HTML forms, not for RFC2396 encoding, which
       // is slightly different (e.g. '+' rather than '%20' to represent a space, etc.).
@@ -106,7 +198,7 @@ class ApiPath {
     }
   }
 
-  private String encodeQueryParam(String s) {
+  private static String encodeQueryParam(String s) {
     try {
       return URLEncoder.encode(s, StandardCharsets.UTF_8.name());
     } catch (UnsupportedEncodingException e) {
@@ -114,4 +206,72 @@ class ApiPath {
       throw new RuntimeException(e);
     }
   }
+
+  private static final class BuiltUrl {
+    private final URL baseUrl;
+    private final String spec;
+    private final URL url;
+
+    private BuiltUrl(URL baseUrl, String spec, URL url) {
+      this.baseUrl = baseUrl;
+      this.spec = spec;
+      this.url = url;
+    }
+  }
+
+  /** Path with placeholders, whose constant segments are encoded once. */
+  static final class Template {
+    private final String template;
+    private final String[] segments;
+    // null for placeholders
+    private final String[] encodedSegments;
+    private final int placeholderCount;
+
+    private Template(String template) {
+      this.template = template;
+      this.segments = template.split("/");
+      this.encodedSegments = new String[segments.length];
+      int placeholders = 0;
+      for (int i = 0; i < segments.length; i++) {
+        final String segment = segments[i];
+        if (segment.startsWith("{") && segment.endsWith("}")) {
+          placeholders++;
+        } else {
+          encodedSegments[i] = encodePathSegment(segment);
+        }
+      }
+      this.placeholderCount = placeholders;
+    }
+
+    /** @param values the values of the placeholders, in order */
+    ApiPath expand(String... values) {
+      if (values.length != placeholderCount) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Template %s expects %d values, got %d",
+                template, placeholderCount, values.length));
+      }
+      final List<String> expandedSegments = new ArrayList<>(segments.length);
+      final StringBuilder encodedPath = new StringBuilder(template.length() + 32);
+      int valueIndex = 0;
+      for (int i = 0; i < segments.length; i++) {
+        if (i > 0) {
+          encodedPath.append('/');
+        }
+        if (encodedSegments[i] != null) {
+          expandedSegments.add(segments[i]);
+          encodedPath.append(encodedSegments[i]);
+        } else {
+          final String value = values[valueIndex++];
+          expandedSegments.add(value);
+          encodedPath.append(encodePathSegment(value));
+        }
+      }
+      return new ApiPath(
+          Collections.unmodifiableList(expandedSegments),
+          encodedPath.toString(),
+          Collections.emptyMap(),
+          "");
+    }
+  }
 }
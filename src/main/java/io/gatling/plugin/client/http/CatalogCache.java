@@ -0,0 +1,355 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.exceptions.EnterprisePluginException;
+import io.gatling.plugin.model.*;
+import io.gatling.plugin.util.CacheDirectory;
+import io.gatling.plugin.util.ExecutorProvider;
+import io.gatling.plugin.util.LambdaExceptionUtil;
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cache of the catalogs listed by the plugins: simulations, packages, teams and pools,
+ * so that the listings and prompts of the next runs are served without waiting for the API. Single
+ * entities, e.g. the simulation to start, are always read from the API.
+ *
+ * <p>The catalogs of a server and token are kept in a single compact binary file of the plugin
+ * cache directory, only accessible to its owner, loaded on first use. A catalog younger than the
+ * {@value #MAX_AGE_PROPERTY} system property, in seconds, is served from the cache; it is refreshed
+ * in the background once past half that age, so that it's rarely served expired. An expired catalog
+ * is fetched again, which costs a {@code 304 Not Modified} when the server sends validators, see
+ * {@link HttpResponseCache}. Catalogs are invalidated by our own mutating calls, but not by the
+ * changes made by others: set the max age to 0 to disable the cache.
+ */
+final class CatalogCache {
+
+  static final String MAX_AGE_PROPERTY = "gatling.enterprise.catalogMaxAge";
+  static final String CATALOG_CACHE_NAME = "catalogs";
+
+  private static final long DEFAULT_MAX_AGE_SECONDS = 60;
+  private static final String CATALOG_FILE_SUFFIX = ".catalog";
+  // written first in the catalog files, changed with their layout
+  private static final int FILE_VERSION = 1;
+
+  /** A catalog, with its binary codec */
+  abstract static class Catalog<T> {
+    private final String name;
+
+    private Catalog(String name) {
+      this.name = name;
+    }
+
+    abstract void write(DataOutputStream out, T item) throws IOException;
+
+    abstract T read(DataInputStream in) throws IOException;
+  }
+
+  static final Catalog<Simulation> SIMULATIONS =
+      new Catalog<Simulation>("simulations") {
+        @Override
+        void write(DataOutputStream out, Simulation simulation) throws IOException {
+          writeUuid(out, simulation.id);
+          out.writeUTF(simulation.name);
+          writeUuid(out, simulation.teamId);
+          out.writeUTF(simulation.className);
+          writeUuid(out, simulation.pkgId);
+        }
+
+        @Override
+        Simulation read(DataInputStream in) throws IOException {
+          return new Simulation(
+              readUuid(in), in.readUTF(), readUuid(in), in.readUTF(), readUuid(in));
+        }
+      };
+
+  static final Catalog<PkgIndex> PACKAGES =
+      new Catalog<PkgIndex>("packages") {
+        @Override
+        void write(DataOutputStream out, PkgIndex pkg) throws IOException {
+          writeUuid(out, pkg.id);
+          writeOptionalUuid(out, pkg.teamId);
+          out.writeUTF(pkg.name);
+          writeOptionalString(out, pkg.fileName);
+        }
+
+        @Override
+        PkgIndex read(DataInputStream in) throws IOException {
+          return new PkgIndex(
+              readUuid(in), readOptionalUuid(in), in.readUTF(), readOptionalString(in));
+        }
+      };
+
+  static final Catalog<Team> TEAMS =
+      new Catalog<Team>("teams") {
+        @Override
+        void write(DataOutputStream out, Team team) throws IOException {
+          writeUuid(out, team.id);
+          out.writeUTF(team.name);
+        }
+
+        @Override
+        Team read(DataInputStream in) throws IOException {
+          return new Team(readUuid(in), in.readUTF());
+        }
+      };
+
+  static final Catalog<Pool> POOLS =
+      new Catalog<Pool>("pools") {
+        @Override
+        void write(DataOutputStream out, Pool pool) throws IOException {
+          writeUuid(out, pool.id);
+          out.writeUTF(pool.name);
+        }
+
+        @Override
+        Pool read(DataInputStream in) throws IOException {
+          return new Pool(readUuid(in), in.readUTF());
+        }
+      };
+
+  private static final List<Catalog<?>> CATALOGS =
+      Arrays.asList(SIMULATIONS, PACKAGES, TEAMS, POOLS);
+
+  private static final class RefresherHolder {
+    private static final ExecutorService REFRESHER =
+        ExecutorProvider.platformThreads().newExecutor("gatling-enterprise-catalogs", 1);
+  }
+
+  private static final class Snapshot {
+    private final long fetchedAt;
+    private final List<?> items;
+
+    private Snapshot(long fetchedAt, List<?> items) {
+      this.fetchedAt = fetchedAt;
+      this.items = items;
+    }
+  }
+
+  private final String key;
+  private final long maxAgeMillis;
+  private final Map<Catalog<?>, Snapshot> snapshots = new HashMap<>();
+  private final Set<Catalog<?>> refreshing = ConcurrentHashMap.newKeySet();
+  // bumped by the invalidations, so that a concurrent refresh doesn't restore a stale catalog
+  private long generation;
+  private boolean loaded;
+
+  CatalogCache(URL baseUrl, String token) {
+    this(
+        baseUrl,
+        token,
+        TimeUnit.SECONDS.toMillis(Long.getLong(MAX_AGE_PROPERTY, DEFAULT_MAX_AGE_SECONDS)));
+  }
+
+  CatalogCache(URL baseUrl, String token, long maxAgeMillis) {
+    this.key = CacheDirectory.keyOf(Arrays.asList(baseUrl.toString(), token));
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * @param fetch lists the catalog from the API
+   * @return the cached catalog if it's not expired, otherwise the fetched one
+   */
+  <T> List<T> get(
+      Catalog<T> catalog,
+      LambdaExceptionUtil.SupplierWithExceptions<List<T>, EnterprisePluginException> fetch)
+      throws EnterprisePluginException {
+    final long refreshGeneration;
+    synchronized (this) {
+      final Snapshot snapshot = snapshot(catalog);
+      if (snapshot != null) {
+        final long age = System.currentTimeMillis() - snapshot.fetchedAt;
+        if (age > maxAgeMillis / 2 && refreshing.add(catalog)) {
+          refreshInBackground(catalog, fetch, generation);
+        }
+        return items(snapshot);
+      }
+      refreshGeneration = generation;
+    }
+    final List<T> items = Collections.unmodifiableList(new ArrayList<>(fetch.get()));
+    store(catalog, items, refreshGeneration);
+    return items;
+  }
+
+  /** @return the cached catalog if it's not expired, otherwise null */
+  synchronized <T> List<T> getIfPresent(Catalog<T> catalog) {
+    final Snapshot snapshot = snapshot(catalog);
+    return snapshot != null ? items(snapshot) : null;
+  }
+
+  /** Drops the given catalog, modified by our own calls */
+  synchronized void invalidate(Catalog<?> catalog) {
+    generation++;
+    if (snapshots.remove(catalog) != null) {
+      save();
+    }
+  }
+
+  private <T> void refreshInBackground(
+      Catalog<T> catalog,
+      LambdaExceptionUtil.SupplierWithExceptions<List<T>, EnterprisePluginException> fetch,
+      long refreshGeneration) {
+    RefresherHolder.REFRESHER.execute(
+        () -> {
+          try {
+            store(
+                catalog,
+                Collections.unmodifiableList(new ArrayList<>(fetch.get())),
+                refreshGeneration);
+          } catch (EnterprisePluginException | RuntimeException e) {
+            // best effort, the catalog is fetched again once expired
+          } finally {
+            refreshing.remove(catalog);
+          }
+        });
+  }
+
+  private synchronized <T> void store(Catalog<T> catalog, List<T> items, long refreshGeneration) {
+    if (maxAgeMillis > 0 && refreshGeneration == generation) {
+      snapshots.put(catalog, new Snapshot(System.currentTimeMillis(), items));
+      save();
+    }
+  }
+
+  /** @return the snapshot of the given catalog if it's not expired, otherwise null */
+  private Snapshot snapshot(Catalog<?> catalog) {
+    if (maxAgeMillis <= 0) {
+      return null;
+    }
+    if (!loaded) {
+      loaded = true;
+      load();
+    }
+    final Snapshot snapshot = snapshots.get(catalog);
+    if (snapshot == null) {
+      return null;
+    }
+    // the clock may have been set back since
+    final long age = System.currentTimeMillis() - snapshot.fetchedAt;
+    return age >= 0 && age < maxAgeMillis ? snapshot : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> items(Snapshot snapshot) {
+    return (List<T>) snapshot.items;
+  }
+
+  // the file is best effort: failing to read or write it only costs fetching the catalogs
+
+  private void load() {
+    try {
+      final File file =
+          new File(CacheDirectory.resolvePrivate(CATALOG_CACHE_NAME), key + CATALOG_FILE_SUFFIX);
+      if (!file.isFile()) {
+        return;
+      }
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        if (in.readInt() != FILE_VERSION) {
+          return;
+        }
+        final int catalogCount = in.readInt();
+        for (int i = 0; i < catalogCount; i++) {
+          final Catalog<?> catalog = CATALOGS.get(in.readInt());
+          final long fetchedAt = in.readLong();
+          snapshots.put(catalog, new Snapshot(fetchedAt, readItems(in, catalog)));
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      snapshots.clear();
+    }
+  }
+
+  private static <T> List<T> readItems(DataInputStream in, Catalog<T> catalog) throws IOException {
+    final int size = in.readInt();
+    final List<T> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      items.add(catalog.read(in));
+    }
+    return Collections.unmodifiableList(items);
+  }
+
+  private void save() {
+    try {
+      final File directory = CacheDirectory.resolvePrivate(CATALOG_CACHE_NAME);
+      final File tempFile = CacheDirectory.createPrivateTempFile(directory, key, ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+          out.writeInt(FILE_VERSION);
+          out.writeInt(snapshots.size());
+          for (Map.Entry<Catalog<?>, Snapshot> entry : snapshots.entrySet()) {
+            out.writeInt(CATALOGS.indexOf(entry.getKey()));
+            out.writeLong(entry.getValue().fetchedAt);
+            writeItems(out, entry.getKey(), entry.getValue().items);
+          }
+        }
+        CacheDirectory.publish(
+            tempFile.toPath(), new File(directory, key + CATALOG_FILE_SUFFIX).toPath());
+      } finally {
+        tempFile.delete();
+      }
+    } catch (IOException e) {
+      // ignore, see above
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void writeItems(DataOutputStream out, Catalog<T> catalog, List<?> items)
+      throws IOException {
+    out.writeInt(items.size());
+    for (Object item : items) {
+      catalog.write(out, (T) item);
+    }
+  }
+
+  private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+    out.writeLong(uuid.getMostSignificantBits());
+    out.writeLong(uuid.getLeastSignificantBits());
+  }
+
+  private static UUID readUuid(DataInputStream in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+
+  private static void writeOptionalUuid(DataOutputStream out, UUID uuid) throws IOException {
+    out.writeBoolean(uuid != null);
+    if (uuid != null) {
+      writeUuid(out, uuid);
+    }
+  }
+
+  private static UUID readOptionalUuid(DataInputStream in) throws IOException {
+    return in.readBoolean() ? readUuid(in) : null;
+  }
+
+  private static void writeOptionalString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readOptionalString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
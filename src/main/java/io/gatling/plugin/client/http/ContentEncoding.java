@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.InputStreamUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/** Decoding of the compressed response bodies, which the JDK HTTP clients don't do themselves */
+final class ContentEncoding {
+
+  static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+  static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+  static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+  private ContentEncoding() {}
+
+  /**
+   * @param body the response body, as received
+   * @param contentEncoding the Content-Encoding header of the response, may be null
+   * @return the decoded body stream
+   */
+  static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return body;
+    }
+    switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body);
+      case "deflate":
+        // should be zlib wrapped, but some servers send raw deflate data
+        final PushbackInputStream pushback = new PushbackInputStream(body, 2);
+        final byte[] header = new byte[2];
+        final int read = readHeader(pushback, header);
+        pushback.unread(header, 0, read);
+        return new InflaterInputStream(pushback, new Inflater(!isZlibHeader(header, read)));
+      case "identity":
+      case "":
+        return body;
+      default:
+        throw new IOException("Unsupported response Content-Encoding: " + contentEncoding);
+    }
+  }
+
+  static byte[] decode(byte[] body, String contentEncoding) throws IOException {
+    if (contentEncoding == null || body.length == 0) {
+      return body;
+    }
+    try (InputStream decoded = decode(new ByteArrayInputStream(body), contentEncoding)) {
+      return InputStreamUtils.readAllBytes(decoded, -1);
+    }
+  }
+
+  private static int readHeader(InputStream is, byte[] header) throws IOException {
+    int offset = 0;
+    int read;
+    while (offset < header.length && (read = is.read(header, offset, header.length - offset)) > 0) {
+      offset += read;
+    }
+    return offset;
+  }
+
+  private static boolean isZlibHeader(byte[] header, int length) {
+    // RFC 1950: deflate compression method, and a check value making the header a multiple of 31
+    return length == 2
+        && (header[0] & 0x0F) == 8
+        && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+  }
+}
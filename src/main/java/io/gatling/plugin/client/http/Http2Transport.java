@@ -0,0 +1,291 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link HttpTransport} based on the Java 11+ {@code java.net.http.HttpClient}, called through
+ * reflection as this library still targets Java 8.
+ *
+ * <p>A single client is shared by all the requests: it negotiates HTTP/2 with the server and
+ * multiplexes the concurrent API calls and uploads over the same connection, falling back to
+ * HTTP/1.1 keep-alive connections otherwise.
+ *
+ * <p>Like the read timeout of {@link java.net.HttpURLConnection}, a request only times out once it
+ * makes no progress for the read timeout: neither a chunk of the uploaded file is sent, nor the
+ * response headers or a chunk of the response body are received. Large uploads and downloads are
+ * never cut short.
+ */
+final class Http2Transport implements HttpTransport {
+
+  private final long connectTimeoutMillis;
+  private final long readTimeoutMillis;
+
+  private final Object client;
+  private final Method sendAsync;
+  private final Object bodyHandler;
+
+  private final Class<?> bodyPublisherClass;
+  private final Class<?> bodyHandlerClass;
+  private final Class<?> bodySubscriberClass;
+  private final Class<?> flowSubscriberClass;
+
+  private final Method newRequestBuilder;
+  private final Method header;
+  private final Method method;
+  private final Method buildRequest;
+
+  private final Method noBody;
+  private final Method ofByteArray;
+  private final Method ofFile;
+
+  private final Method statusCode;
+  private final Method headers;
+  private final Method headersMap;
+  private final Method body;
+
+  Http2Transport(long connectTimeoutMillis, long readTimeoutMillis)
+      throws ReflectiveOperationException {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.readTimeoutMillis = readTimeoutMillis;
+
+    final Class<?> clientClass = Class.forName("java.net.http.HttpClient");
+    final Class<?> clientBuilderClass = Class.forName("java.net.http.HttpClient$Builder");
+    final Class<?> versionClass = Class.forName("java.net.http.HttpClient$Version");
+    final Class<?> redirectClass = Class.forName("java.net.http.HttpClient$Redirect");
+    final Class<?> requestClass = Class.forName("java.net.http.HttpRequest");
+    final Class<?> requestBuilderClass = Class.forName("java.net.http.HttpRequest$Builder");
+    final Class<?> bodyPublisherClass = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+    final Class<?> bodyPublishersClass = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+    final Class<?> responseClass = Class.forName("java.net.http.HttpResponse");
+    final Class<?> bodyHandlerClass = Class.forName("java.net.http.HttpResponse$BodyHandler");
+    final Class<?> bodyHandlersClass = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+    final Class<?> bodySubscriberClass = Class.forName("java.net.http.HttpResponse$BodySubscriber");
+    final Class<?> headersClass = Class.forName("java.net.http.HttpHeaders");
+
+    Object clientBuilder = clientClass.getMethod("newBuilder").invoke(null);
+    clientBuilder =
+        clientBuilderClass
+            .getMethod("version", versionClass)
+            .invoke(clientBuilder, versionClass.getField("HTTP_2").get(null));
+    clientBuilder =
+        clientBuilderClass
+            .getMethod("connectTimeout", Duration.class)
+            .invoke(clientBuilder, Duration.ofMillis(connectTimeoutMillis));
+    // same as HttpURLConnection
+    clientBuilder =
+        clientBuilderClass
+            .getMethod("followRedirects", redirectClass)
+            .invoke(clientBuilder, redirectClass.getField("NORMAL").get(null));
+    this.client = clientBuilderClass.getMethod("build").invoke(clientBuilder);
+    this.sendAsync = clientClass.getMethod("sendAsync", requestClass, bodyHandlerClass);
+    this.bodyHandler = bodyHandlersClass.getMethod("ofByteArray").invoke(null);
+
+    this.bodyPublisherClass = bodyPublisherClass;
+    this.bodyHandlerClass = bodyHandlerClass;
+    this.bodySubscriberClass = bodySubscriberClass;
+    this.flowSubscriberClass = Class.forName("java.util.concurrent.Flow$Subscriber");
+
+    this.newRequestBuilder = requestClass.getMethod("newBuilder", URI.class);
+    this.header = requestBuilderClass.getMethod("header", String.class, String.class);
+    this.method = requestBuilderClass.getMethod("method", String.class, bodyPublisherClass);
+    this.buildRequest = requestBuilderClass.getMethod("build");
+
+    this.noBody = bodyPublishersClass.getMethod("noBody");
+    this.ofByteArray = bodyPublishersClass.getMethod("ofByteArray", byte[].class);
+    this.ofFile = bodyPublishersClass.getMethod("ofFile", Path.class);
+
+    this.statusCode = responseClass.getMethod("statusCode");
+    this.headers = responseClass.getMethod("headers");
+    this.headersMap = headersClass.getMethod("map");
+    this.body = responseClass.getMethod("body");
+  }
+
+  private static final class InstanceHolder {
+    private static final Http2Transport INSTANCE = create();
+
+    private static Http2Transport create() {
+      try {
+        return new Http2Transport(CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+      } catch (ReflectiveOperationException e) {
+        // Java 8, or a runtime without the java.net.http module
+        return null;
+      }
+    }
+  }
+
+  /** @return the shared instance, or null if the Java HTTP client is not available */
+  static Http2Transport instance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  @Override
+  public void preConnect(TransportRequest request) throws IOException {
+    // the client keeps its connections
+    execute(request);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final Activity activity = new Activity(connectTimeoutMillis);
+    try {
+      final Object requestBuilder = newRequestBuilder.invoke(null, request.url.toURI());
+      for (Map.Entry<String, String> entry : request.headers().entrySet()) {
+        header.invoke(requestBuilder, entry.getKey(), entry.getValue());
+      }
+      final RequestBody requestBody = request.body();
+      final Object bodyPublisher;
+      if (requestBody == null) {
+        bodyPublisher = noBody.invoke(null);
+      } else if (requestBody.file != null) {
+        bodyPublisher =
+            tracking(bodyPublisherClass, ofFile.invoke(null, requestBody.file.toPath()), activity);
+      } else {
+        bodyPublisher = ofByteArray.invoke(null, (Object) requestBody.bytes);
+      }
+      method.invoke(requestBuilder, request.method, bodyPublisher);
+
+      final Object response =
+          activity.await(
+              (CompletableFuture<?>)
+                  sendAsync.invoke(
+                      client,
+                      buildRequest.invoke(requestBuilder),
+                      tracking(bodyHandlerClass, bodyHandler, activity)),
+              readTimeoutMillis);
+      final Map<String, List<String>> responseHeaders =
+          (Map<String, List<String>>) headersMap.invoke(headers.invoke(response));
+      final byte[] transferredBody = (byte[]) body.invoke(response);
+      final List<String> contentEncoding =
+          responseHeaders.get(ContentEncoding.CONTENT_ENCODING_HEADER.toLowerCase(Locale.ROOT));
+      return new TransportResponse(
+          (Integer) statusCode.invoke(response),
+          responseHeaders,
+          ContentEncoding.decode(
+              transferredBody,
+              contentEncoding == null || contentEncoding.isEmpty() ? null : contentEncoding.get(0)),
+          transferredBody.length);
+    } catch (InvocationTargetException | ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (IllegalAccessException | URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * @return a proxy of the given body publisher, body handler, or of their subscribers, recording
+   *     the progress of the exchange in the given activity
+   */
+  private Object tracking(Class<?> type, Object target, Activity activity) {
+    return Proxy.newProxyInstance(
+        Http2Transport.class.getClassLoader(),
+        new Class<?>[] {type},
+        (proxy, invoked, args) -> {
+          switch (invoked.getName()) {
+            case "subscribe":
+              // the client subscribes to the body publisher once connected
+              activity.progress();
+              args[0] = tracking(flowSubscriberClass, args[0], activity);
+              break;
+            case "apply":
+              // the body handler is applied once the response headers are received
+              activity.progress();
+              return tracking(bodySubscriberClass, invokeTarget(invoked, target, args), activity);
+            case "onNext":
+              activity.progress();
+              break;
+            default:
+          }
+          return invokeTarget(invoked, target, args);
+        });
+  }
+
+  private static Object invokeTarget(Method invoked, Object target, Object[] args)
+      throws Throwable {
+    try {
+      return invoked.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Last progress of an exchange, for its read timeout */
+  private static final class Activity {
+    private volatile long lastProgressNanos;
+
+    Activity(long connectTimeoutMillis) {
+      // the connection is covered by the connect timeout of the client
+      this.lastProgressNanos =
+          System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis);
+    }
+
+    void progress() {
+      lastProgressNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the response, once received
+     * @throws SocketTimeoutException if the exchange made no progress for the read timeout, which
+     *     cancels it
+     */
+    Object await(CompletableFuture<?> response, long readTimeoutMillis)
+        throws InterruptedException, ExecutionException, SocketTimeoutException {
+      final long readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+      while (true) {
+        final long remainingNanos = lastProgressNanos + readTimeoutNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+          response.cancel(true);
+          throw new SocketTimeoutException("Read timed out");
+        }
+        try {
+          return response.get(remainingNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          // check the progress made in the meantime
+        }
+      }
+    }
+  }
+}
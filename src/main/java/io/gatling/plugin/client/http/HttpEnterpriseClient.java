@@ -39,6 +39,9 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
   private final PoolsApiRequests poolsApiRequests;
   private final SimulationsApiRequests simulationsApiRequests;
   private final TeamsApiRequests teamsApiRequests;
+  private final TransferMetrics transferMetrics = new TransferMetrics();
+  private final CatalogCache catalogCache;
+  private final boolean preConnect;
 
   /**
    * @param baseUrl Base URL for the Gatling Enterprise server, e.g. {@code
@@ -53,14 +56,34 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
       throw new InvalidBaseUrlException(baseUrl);
     }
     final URL publicApiBaseUrl = ApiPath.of("api", "public").buildUrl(baseUrl);
+    preConnect = PreConnectingTransport.isEnabled();
+    final HttpTransport transport =
+        new MeteredTransport(
+            preConnect
+                ? new PreConnectingTransport(HttpTransport.fromSystemProperties())
+                : HttpTransport.fromSystemProperties(),
+            transferMetrics);
+
+    infoApiRequests = new InfoApiRequests(publicApiBaseUrl, token, transport);
+    packagesApiRequests = new PackagesApiRequests(publicApiBaseUrl, token, transport);
+    poolsApiRequests = new PoolsApiRequests(publicApiBaseUrl, token, transport);
+    simulationsApiRequests = new SimulationsApiRequests(publicApiBaseUrl, token, transport);
+    teamsApiRequests = new TeamsApiRequests(publicApiBaseUrl, token, transport);
+    catalogCache = new CatalogCache(publicApiBaseUrl, token);
+
+    new PrivateApiRequests(publicApiBaseUrl, token, transport).checkVersionSupport(client, version);
+  }
 
-    infoApiRequests = new InfoApiRequests(publicApiBaseUrl, token);
-    packagesApiRequests = new PackagesApiRequests(publicApiBaseUrl, token);
-    poolsApiRequests = new PoolsApiRequests(publicApiBaseUrl, token);
-    simulationsApiRequests = new SimulationsApiRequests(publicApiBaseUrl, token);
-    teamsApiRequests = new TeamsApiRequests(publicApiBaseUrl, token);
+  /** @return the sizes of the responses received by this client, compressed and decoded */
+  public TransferMetrics getTransferMetrics() {
+    return transferMetrics;
+  }
 
-    new PrivateApiRequests(publicApiBaseUrl, token).checkVersionSupport(client, version);
+  @Override
+  public void preConnect() {
+    if (preConnect) {
+      infoApiRequests.preConnect();
+    }
   }
 
   @Override
@@ -70,27 +93,44 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
 
   @Override
   public List<Simulation> getSimulations() throws EnterprisePluginException {
-    return simulationsApiRequests.listSimulations().data;
+    return catalogCache.get(
+        CatalogCache.SIMULATIONS, () -> simulationsApiRequests.listSimulations().data);
+  }
+
+  @Override
+  public List<SimulationSummary> getSimulationSummaries() throws EnterprisePluginException {
+    final List<Simulation> simulations = catalogCache.getIfPresent(CatalogCache.SIMULATIONS);
+    if (simulations == null) {
+      return simulationsApiRequests.listSimulationSummaries();
+    }
+    final List<SimulationSummary> summaries = new ArrayList<>(simulations.size());
+    for (Simulation simulation : simulations) {
+      summaries.add(
+          new SimulationSummary(
+              simulation.id, simulation.name, simulation.className, simulation.pkgId));
+    }
+    return summaries;
   }
 
   @Override
   public Simulation getSimulation(UUID simulationId) throws EnterprisePluginException {
+    // not from the catalog, which may be outdated: the simulation is updated and started next
     return simulationsApiRequests.getSimulation(simulationId);
   }
 
   @Override
   public List<Team> getTeams() throws EnterprisePluginException {
-    return teamsApiRequests.listTeams().data;
+    return catalogCache.get(CatalogCache.TEAMS, () -> teamsApiRequests.listTeams().data);
   }
 
   @Override
   public List<Pool> getPools() throws EnterprisePluginException {
-    return poolsApiRequests.listPools().data;
+    return catalogCache.get(CatalogCache.POOLS, () -> poolsApiRequests.listPools().data);
   }
 
   @Override
   public List<PkgIndex> getPackages() throws EnterprisePluginException {
-    return packagesApiRequests.listPackages().data;
+    return catalogCache.get(CatalogCache.PACKAGES, () -> packagesApiRequests.listPackages().data);
   }
 
   @Override
@@ -100,7 +140,12 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
 
   @Override
   public long uploadPackage(UUID packageId, File file) throws EnterprisePluginException {
-    return packagesApiRequests.uploadPackage(packageId, file);
+    try {
+      return packagesApiRequests.uploadPackage(packageId, file);
+    } finally {
+      // even a failed call may have modified the catalog, here the file name of the package
+      catalogCache.invalidate(CatalogCache.PACKAGES);
+    }
   }
 
   @Override
@@ -115,10 +160,19 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
     return simulationsApiRequests.startSimulation(simulationId, options);
   }
 
-  private boolean checksumComparison(UUID packageId, File file) throws EnterprisePluginException {
+  /** @param precomputedChecksum checksum of the file, or null to compute it */
+  private boolean checksumComparison(UUID packageId, File file, String precomputedChecksum)
+      throws EnterprisePluginException {
     try {
       Pkg pkg = getPackage(packageId);
-      return pkg.file != null && PkgChecksum.computeChecksum(file).equals(pkg.file.checksum);
+      // for the upload
+      preConnect();
+      if (pkg.file == null) {
+        return false;
+      }
+      final String checksum =
+          precomputedChecksum != null ? precomputedChecksum : PkgChecksum.computeChecksum(file);
+      return checksum.equals(pkg.file.checksum);
     } catch (PackageNotFoundException e) {
       return false;
     } catch (IOException e) {
@@ -129,13 +183,25 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
   @Override
   public long uploadPackageWithChecksum(UUID packageId, File file)
       throws EnterprisePluginException {
-    return checksumComparison(packageId, file) ? -1 : uploadPackage(packageId, file);
+    return checksumComparison(packageId, file, null) ? -1 : uploadPackage(packageId, file);
+  }
+
+  @Override
+  public long uploadPackageWithChecksum(UUID packageId, File file, String precomputedChecksum)
+      throws EnterprisePluginException {
+    return checksumComparison(packageId, file, precomputedChecksum)
+        ? -1
+        : uploadPackage(packageId, file);
   }
 
   @Override
   public SimulationClassName updateSimulationClassName(UUID simulationId, String className)
       throws EnterprisePluginException {
-    return simulationsApiRequests.updateSimulationClassName(simulationId, className);
+    try {
+      return simulationsApiRequests.updateSimulationClassName(simulationId, className);
+    } finally {
+      catalogCache.invalidate(CatalogCache.SIMULATIONS);
+    }
   }
 
   @Override
@@ -146,23 +212,31 @@ public final class HttpEnterpriseClient implements EnterpriseClient {
       UUID pkgId,
       Map<UUID, HostByPool> hostsByPool)
       throws EnterprisePluginException {
-    return simulationsApiRequests.createSimulation(
-        new SimulationCreationPayload(
-            simulationName,
-            teamId,
-            className,
-            pkgId,
-            DEFAULT_SYSTEM_PROPERTIES,
-            DEFAULT_ENVIRONMENT_VARIABLES,
-            /* ignoreGlobalProperties */ false,
-            DEFAULT_TIME_WINDOW,
-            hostsByPool,
-            /* usePoolWeights */ false,
-            /* usePoolDedicatedIps */ false));
+    try {
+      return simulationsApiRequests.createSimulation(
+          new SimulationCreationPayload(
+              simulationName,
+              teamId,
+              className,
+              pkgId,
+              DEFAULT_SYSTEM_PROPERTIES,
+              DEFAULT_ENVIRONMENT_VARIABLES,
+              /* ignoreGlobalProperties */ false,
+              DEFAULT_TIME_WINDOW,
+              hostsByPool,
+              /* usePoolWeights */ false,
+              /* usePoolDedicatedIps */ false));
+    } finally {
+      catalogCache.invalidate(CatalogCache.SIMULATIONS);
+    }
   }
 
   @Override
   public Pkg createPackage(String packageName, UUID teamId) throws EnterprisePluginException {
-    return packagesApiRequests.createPackage(new PackageCreationPayload(packageName, teamId));
+    try {
+      return packagesApiRequests.createPackage(new PackageCreationPayload(packageName, teamId));
+    } finally {
+      catalogCache.invalidate(CatalogCache.PACKAGES);
+    }
   }
 }
@@ -16,16 +16,45 @@
 
 package io.gatling.plugin.client.http;
 
+import io.gatling.plugin.client.json.JsonUtil;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 
 public final class HttpResponse {
 
   public final int code;
+  /** The text body, empty when the successful response is in the binary {@link #smileBody} */
   public final String body;
+  /** The body in the binary Smile format, or null for a text body */
+  final byte[] smileBody;
 
   public HttpResponse(int code, String body) {
+    this(code, body, null);
+  }
+
+  private HttpResponse(int code, String body, byte[] smileBody) {
     this.code = code;
     this.body = body;
+    this.smileBody = smileBody;
+  }
+
+  static HttpResponse of(int code, PayloadFormat format, byte[] body) {
+    if (format != PayloadFormat.SMILE) {
+      return new HttpResponse(code, new String(body, StandardCharsets.UTF_8));
+    }
+    final HttpResponse response = new HttpResponse(code, "", body);
+    // errors are reported with their body, so it must stay readable
+    return response.isSuccessful() ? response : new HttpResponse(code, toJson(body), body);
+  }
+
+  private static String toJson(byte[] smileBody) {
+    try {
+      return JsonUtil.JSON_MAPPER.writeValueAsString(JsonUtil.SMILE_MAPPER.readTree(smileBody));
+    } catch (IOException e) {
+      return "";
+    }
   }
 
   public boolean isSuccessful() {
@@ -37,12 +66,14 @@ public final class HttpResponse {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     HttpResponse that = (HttpResponse) o;
-    return code == that.code && Objects.equals(body, that.body);
+    return code == that.code
+        && Objects.equals(body, that.body)
+        && Arrays.equals(smileBody, that.smileBody);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(code, body);
+    return Objects.hash(code, body, Arrays.hashCode(smileBody));
   }
 
   @Override
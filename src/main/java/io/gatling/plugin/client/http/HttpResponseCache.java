@@ -0,0 +1,238 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.CacheDirectory;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the successful GET responses carrying validators ({@code ETag} or {@code
+ * Last-Modified}), so that the next identical requests are conditional and a {@code 304 Not
+ * Modified} is answered from the cache instead of transferring the whole body again.
+ *
+ * <p>Entries are kept in a bounded memory cache, backed by a bounded disk cache in the plugin cache
+ * directory so that they survive across plugin invocations; like the responses, the disk cache is
+ * private to its owner. Entries are grouped by scope, i.e. token and API resource, and a scope is
+ * invalidated by our own mutating calls: a {@code Last-Modified} validator has a one second
+ * precision, which may not catch a change made right after the response was cached.
+ */
+final class HttpResponseCache {
+
+  static final String HTTP_CACHE_NAME = "http";
+
+  private static final String ETAG_HEADER = "ETag";
+  private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+  private static final String CONTENT_TYPE_HEADER = "Content-Type";
+  private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+  private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+  private static final String ENTRY_SUFFIX = ".response";
+  // written first in the entry files, changed with their layout
+  private static final int ENTRY_VERSION = 2;
+  private static final int MAX_MEMORY_ENTRIES = 128;
+  private static final int MAX_DISK_ENTRIES = 512;
+  private static final int MAX_BODY_LENGTH = 1024 * 1024;
+
+  static final HttpResponseCache INSTANCE = new HttpResponseCache();
+
+  private final Map<String, Entry> memory =
+      new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > MAX_MEMORY_ENTRIES;
+        }
+      };
+
+  private HttpResponseCache() {}
+
+  static final class Entry {
+    final String etag;
+    final String lastModified;
+    final String contentType;
+    final byte[] body;
+
+    private Entry(String etag, String lastModified, String contentType, byte[] body) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.contentType = contentType;
+      this.body = body;
+    }
+
+    /** Makes the request conditional */
+    void addValidators(TransportRequest request) {
+      if (!etag.isEmpty()) {
+        request.header(IF_NONE_MATCH_HEADER, etag);
+      }
+      if (!lastModified.isEmpty()) {
+        request.header(IF_MODIFIED_SINCE_HEADER, lastModified);
+      }
+    }
+
+    HttpResponse toResponse() {
+      return HttpResponse.of(
+          HttpURLConnection.HTTP_OK, PayloadFormat.ofContentType(contentType), body);
+    }
+  }
+
+  /**
+   * @param scope the group of entries the request belongs to, see {@link #invalidate(String)}
+   * @param request the request identity: its URL, and the headers its response varies with
+   * @return the cached entry, or null if there's none
+   */
+  Entry lookup(String scope, String request) {
+    final String key = key(scope, request);
+    synchronized (memory) {
+      final Entry entry = memory.get(key);
+      if (entry != null) {
+        return entry;
+      }
+    }
+    final Entry entry = readEntry(key);
+    if (entry != null) {
+      synchronized (memory) {
+        memory.put(key, entry);
+      }
+    }
+    return entry;
+  }
+
+  /** Caches the given successful response, if it carries validators */
+  void store(String scope, String request, TransportResponse response) {
+    final String etag = response.header(ETAG_HEADER);
+    final String lastModified = response.header(LAST_MODIFIED_HEADER);
+    final String contentType = response.header(CONTENT_TYPE_HEADER);
+    if ((etag == null && lastModified == null) || response.body.length > MAX_BODY_LENGTH) {
+      return;
+    }
+    final Entry entry =
+        new Entry(
+            etag != null ? etag : "",
+            lastModified != null ? lastModified : "",
+            contentType != null ? contentType : "",
+            response.body);
+    final String key = key(scope, request);
+    synchronized (memory) {
+      memory.put(key, entry);
+    }
+    writeEntry(key, entry);
+  }
+
+  /** Drops all the entries of the given scope */
+  void invalidate(String scope) {
+    final String prefix = scopeKey(scope) + "-";
+    synchronized (memory) {
+      final Iterator<String> keys = memory.keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().startsWith(prefix)) {
+          keys.remove();
+        }
+      }
+    }
+    for (File file : listEntryFiles(prefix)) {
+      file.delete();
+    }
+  }
+
+  private static String key(String scope, String request) {
+    // the scope key comes first, so that a scope can be invalidated by file name
+    return scopeKey(scope) + "-" + CacheDirectory.keyOf(Arrays.asList(scope, request));
+  }
+
+  private static String scopeKey(String scope) {
+    return CacheDirectory.keyOf(Collections.singletonList(scope)).substring(0, 16);
+  }
+
+  // the disk cache is best effort: failing to read or write it only costs a full response
+
+  private static Entry readEntry(String key) {
+    try {
+      final File file =
+          new File(CacheDirectory.resolvePrivate(HTTP_CACHE_NAME), key + ENTRY_SUFFIX);
+      if (!file.isFile()) {
+        return null;
+      }
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        if (in.readInt() != ENTRY_VERSION) {
+          return null;
+        }
+        final String etag = in.readUTF();
+        final String lastModified = in.readUTF();
+        final String contentType = in.readUTF();
+        final byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        // the least recently used entries are the first ones evicted
+        file.setLastModified(System.currentTimeMillis());
+        return new Entry(etag, lastModified, contentType, body);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void writeEntry(String key, Entry entry) {
+    try {
+      final File directory = CacheDirectory.resolvePrivate(HTTP_CACHE_NAME);
+      final File tempFile = CacheDirectory.createPrivateTempFile(directory, key, ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+          out.writeInt(ENTRY_VERSION);
+          out.writeUTF(entry.etag);
+          out.writeUTF(entry.lastModified);
+          out.writeUTF(entry.contentType);
+          out.writeInt(entry.body.length);
+          out.write(entry.body);
+        }
+        CacheDirectory.publish(tempFile.toPath(), new File(directory, key + ENTRY_SUFFIX).toPath());
+      } finally {
+        tempFile.delete();
+      }
+      evictDiskEntries();
+    } catch (IOException e) {
+      // ignore, see above
+    }
+  }
+
+  private static void evictDiskEntries() {
+    final File[] files = listEntryFiles("");
+    if (files.length > MAX_DISK_ENTRIES) {
+      Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+      for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+        files[i].delete();
+      }
+    }
+  }
+
+  private static File[] listEntryFiles(String prefix) {
+    try {
+      final File[] files =
+          CacheDirectory.resolvePrivate(HTTP_CACHE_NAME)
+              .listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(ENTRY_SUFFIX));
+      return files != null ? files : new File[0];
+    } catch (IOException e) {
+      return new File[0];
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.io.IOException;
+
+/**
+ * Executes the HTTP requests of the API clients. The transport is selected with the {@value
+ * #TRANSPORT_PROPERTY} system property:
+ *
+ * <ul>
+ *   <li>{@code default}: {@link java.net.HttpURLConnection}, one HTTP/1.1 connection per request
+ *   <li>{@code http2}: the Java 11+ HTTP client, which multiplexes the concurrent requests over a
+ *       single HTTP/2 connection when the server supports it; falls back to the default transport
+ *       on older Java versions
+ * </ul>
+ *
+ * File uploads over plain HTTP can be sent with {@link ZeroCopyUploadTransport} in both cases, see
+ * {@link ZeroCopyUploadTransport#ZERO_COPY_UPLOAD_PROPERTY}.
+ */
+interface HttpTransport {
+
+  String TRANSPORT_PROPERTY = "gatling.enterprise.httpTransport";
+
+  int CONNECT_TIMEOUT_MS = 10_000;
+  int READ_TIMEOUT_MS = 10_000;
+
+  /**
+   * @return the response, whatever its status code
+   * @throws IOException if the request could not be sent or the response could not be read
+   */
+  TransportResponse execute(TransportRequest request) throws IOException;
+
+  /**
+   * Executes the given lightweight request, e.g. a HEAD, only to open a connection to the server,
+   * and keeps this connection for the next request. Does nothing for transports which don't reuse
+   * connections.
+   *
+   * @throws IOException if the connection could not be opened
+   */
+  default void preConnect(TransportRequest request) throws IOException {}
+
+  static HttpTransport fromSystemProperties() {
+    final String name = System.getProperty(TRANSPORT_PROPERTY, "default");
+    final HttpTransport transport;
+    switch (name) {
+      case "default":
+        transport = UrlConnectionTransport.INSTANCE;
+        break;
+      case "http2":
+        final HttpTransport http2Transport = Http2Transport.instance();
+        transport = http2Transport != null ? http2Transport : UrlConnectionTransport.INSTANCE;
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "Unknown HTTP transport '" + name + "', expected 'default' or 'http2'");
+    }
+    return ZeroCopyUploadTransport.isEnabled() ? new ZeroCopyUploadTransport(transport) : transport;
+  }
+}
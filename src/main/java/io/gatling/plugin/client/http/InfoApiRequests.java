@@ -21,12 +21,17 @@ import io.gatling.plugin.model.ServerInformation;
 import java.net.URL;
 
 public class InfoApiRequests extends AbstractApiRequests {
+  private static final ApiPath INFO_PATH = ApiPath.of("info");
 
-  InfoApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  InfoApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   ServerInformation getServerInformation() throws EnterprisePluginException {
-    return getJson(ApiPath.of("info"), ServerInformation.class);
+    return getJson(INFO_PATH, ServerInformation.class);
+  }
+
+  void preConnect() {
+    preConnect(INFO_PATH);
   }
 }
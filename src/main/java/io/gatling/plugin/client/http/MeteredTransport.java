@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.io.IOException;
+
+/** {@link HttpTransport} recording the {@link TransferMetrics} of the responses of its delegate */
+final class MeteredTransport implements HttpTransport {
+
+  private final HttpTransport delegate;
+  private final TransferMetrics metrics;
+
+  MeteredTransport(HttpTransport delegate, TransferMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final TransportResponse response = delegate.execute(request);
+    metrics.record(response);
+    return response;
+  }
+
+  @Override
+  public void preConnect(TransportRequest request) throws IOException {
+    delegate.preConnect(request);
+  }
+}
@@ -16,33 +16,31 @@
 
 package io.gatling.plugin.client.http;
 
-import io.gatling.plugin.exceptions.ApiCallIOException;
 import io.gatling.plugin.exceptions.EnterprisePluginException;
 import io.gatling.plugin.exceptions.InvalidApiCallException;
 import io.gatling.plugin.exceptions.PackageNotFoundException;
 import io.gatling.plugin.model.*;
 import java.io.File;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.file.Files;
 import java.util.UUID;
 
 class PackagesApiRequests extends AbstractApiRequests {
   private static final ApiPath PKG_PATH = ApiPath.of("artifacts");
+  private static final ApiPath.Template PACKAGE_PATH = ApiPath.template("artifacts/{id}");
+  private static final ApiPath.Template CONTENT_PATH = ApiPath.template("artifacts/{id}/content");
 
-  PackagesApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  PackagesApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   Packages listPackages() throws EnterprisePluginException {
-    return getJson(ApiPath.of("artifacts"), Packages.class);
+    return getJson(PKG_PATH, Packages.class);
   }
 
   Pkg readPackage(UUID packageId) throws EnterprisePluginException {
     return getJson(
-        PKG_PATH.append(packageId.toString()),
+        PACKAGE_PATH.expand(packageId.toString()),
         Pkg.class,
         response -> {
           if (response.code == HttpURLConnection.HTTP_NOT_FOUND) {
@@ -57,18 +55,13 @@ class PackagesApiRequests extends AbstractApiRequests {
 
   long uploadPackage(UUID packageId, File file) throws EnterprisePluginException {
     final ApiPath path =
-        PKG_PATH.append(packageId.toString(), "content").addQueryParam("filename", file.getName());
+        CONTENT_PATH.expand(packageId.toString()).addQueryParam("filename", file.getName());
     put(
         path,
-        connection -> {
-          connection.setRequestProperty(CONTENT_TYPE_HEADER, OCTET_STREAM_MEDIA_TYPE);
-          connection.setDoOutput(true);
-          try (final OutputStream os = connection.getOutputStream()) {
-            Files.copy(file.toPath(), os);
-          } catch (IOException e) {
-            throw new ApiCallIOException(e);
-          }
-        },
+        request ->
+            request
+                .header(CONTENT_TYPE_HEADER, OCTET_STREAM_MEDIA_TYPE)
+                .body(RequestBody.ofFile(file)),
         response -> {
           if (response.code == HttpURLConnection.HTTP_ENTITY_TOO_LARGE) {
             throw new InvalidApiCallException("Package exceeds maximum allowed size (5 GB)");
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+/**
+ * Formats of the API payloads, negotiated with the {@code Accept} header. The preferred format is
+ * selected with the {@value #FORMAT_PROPERTY} system property:
+ *
+ * <ul>
+ *   <li>{@code json}: JSON text, the default
+ *   <li>{@code smile}: the binary Smile format, smaller and faster to parse for big listings
+ * </ul>
+ *
+ * Whatever the preferred format, a response is parsed according to its {@code Content-Type}, so a
+ * server which doesn't support Smile simply answers in JSON. Request bodies are always sent as
+ * JSON: they're small, and the server support can't be known beforehand.
+ */
+enum PayloadFormat {
+  JSON("application/json"),
+  SMILE("application/x-jackson-smile");
+
+  static final String FORMAT_PROPERTY = "gatling.enterprise.payloadFormat";
+
+  final String mediaType;
+
+  PayloadFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  /** @return the value of the {@code Accept} header preferring this format over JSON */
+  String acceptHeader() {
+    return this == JSON ? mediaType : mediaType + ", " + JSON.mediaType + ";q=0.9";
+  }
+
+  static PayloadFormat fromSystemProperties() {
+    final String format = System.getProperty(FORMAT_PROPERTY, "json");
+    switch (format) {
+      case "json":
+        return JSON;
+      case "smile":
+        return SMILE;
+      default:
+        throw new IllegalArgumentException(
+            "Unknown payload format '" + format + "', expected 'json' or 'smile'");
+    }
+  }
+
+  /** @return the format of a response with the given {@code Content-Type}, JSON if unknown */
+  static PayloadFormat ofContentType(String contentType) {
+    if (contentType != null) {
+      final int parametersStart = contentType.indexOf(';');
+      final String mediaType =
+          (parametersStart >= 0 ? contentType.substring(0, parametersStart) : contentType).trim();
+      if (SMILE.mediaType.equalsIgnoreCase(mediaType)) {
+        return SMILE;
+      }
+    }
+    return JSON;
+  }
+}
@@ -21,12 +21,13 @@ import io.gatling.plugin.model.Pools;
 import java.net.URL;
 
 class PoolsApiRequests extends AbstractApiRequests {
+  private static final ApiPath POOLS_PATH = ApiPath.of("pools");
 
-  PoolsApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  PoolsApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   Pools listPools() throws EnterprisePluginException {
-    return getJson(ApiPath.of("pools"), Pools.class);
+    return getJson(POOLS_PATH, Pools.class);
   }
 }
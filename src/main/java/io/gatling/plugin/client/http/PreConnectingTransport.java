@@ -0,0 +1,91 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.ExecutorProvider;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link HttpTransport} opening the connection of its next request in the background, e.g. while
+ * the package is scanned locally. Enabled with the {@value #PRE_CONNECT_PROPERTY} system property.
+ *
+ * <p>The DNS resolution and the TCP and TLS handshakes are done by {@link
+ * HttpTransport#preConnect(TransportRequest)} on the delegate, which keeps the connection for the
+ * next request. That next request waits for an ongoing pre-connection rather than opening a
+ * connection of its own, but no longer than the connect timeout: a slower pre-connection is
+ * cancelled. Failed pre-connections are ignored.
+ */
+final class PreConnectingTransport implements HttpTransport {
+
+  static final String PRE_CONNECT_PROPERTY = "gatling.enterprise.preConnect";
+
+  private final HttpTransport delegate;
+  private final long maxWaitMillis;
+  private final AtomicReference<Future<?>> pending = new AtomicReference<>();
+
+  PreConnectingTransport(HttpTransport delegate) {
+    this(delegate, CONNECT_TIMEOUT_MS);
+  }
+
+  PreConnectingTransport(HttpTransport delegate, long maxWaitMillis) {
+    this.delegate = delegate;
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  static boolean isEnabled() {
+    return Boolean.getBoolean(PRE_CONNECT_PROPERTY);
+  }
+
+  private static final class ConnectorHolder {
+    private static final ExecutorService CONNECTOR =
+        ExecutorProvider.platformThreads().newExecutor("gatling-enterprise-preconnect", 1);
+  }
+
+  /** Returns immediately, the connection is opened in the background */
+  @Override
+  public void preConnect(TransportRequest request) {
+    final FutureTask<Void> preConnection =
+        new FutureTask<>(
+            () -> {
+              delegate.preConnect(request);
+              return null;
+            });
+    if (pending.compareAndSet(null, preConnection)) {
+      ConnectorHolder.CONNECTOR.execute(preConnection);
+    }
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final Future<?> preConnection = pending.getAndSet(null);
+    if (preConnection != null) {
+      try {
+        preConnection.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (TimeoutException e) {
+        // the request opens its own connection rather than waiting for a stalled one
+        preConnection.cancel(true);
+      } catch (ExecutionException e) {
+        // the request opens its own connection
+      }
+    }
+    return delegate.execute(request);
+  }
+}
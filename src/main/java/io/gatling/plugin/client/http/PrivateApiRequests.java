@@ -23,8 +23,8 @@ import java.net.URL;
 
 class PrivateApiRequests extends AbstractApiRequests {
 
-  PrivateApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  PrivateApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   /** @throws UnsupportedClientException if this client version is outdated */
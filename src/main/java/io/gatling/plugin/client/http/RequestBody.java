@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.InputStreamUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/** Body of a {@link TransportRequest}, either in memory or streamed from a file */
+final class RequestBody {
+
+  /** null for a file body */
+  final byte[] bytes;
+  /** null for an in-memory body */
+  final File file;
+
+  private RequestBody(byte[] bytes, File file) {
+    this.bytes = bytes;
+    this.file = file;
+  }
+
+  static RequestBody ofBytes(byte[] bytes) {
+    return new RequestBody(bytes, null);
+  }
+
+  static RequestBody ofFile(File file) {
+    return new RequestBody(null, file);
+  }
+
+  long contentLength() {
+    return bytes != null ? bytes.length : file.length();
+  }
+
+  void writeTo(OutputStream os) throws IOException {
+    if (bytes != null) {
+      os.write(bytes);
+    } else {
+      // through a pooled buffer, larger than the one of Files.copy
+      try (InputStream is = Files.newInputStream(file.toPath())) {
+        InputStreamUtils.copy(is, os);
+      }
+    }
+  }
+}
@@ -17,25 +17,40 @@
 package io.gatling.plugin.client.http;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.gatling.plugin.client.json.ProjectionReader;
 import io.gatling.plugin.exceptions.EnterprisePluginException;
 import io.gatling.plugin.exceptions.SimulationNotFoundException;
 import io.gatling.plugin.model.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
 class SimulationsApiRequests extends AbstractApiRequests {
 
   private static final ApiPath SIM_PATH = ApiPath.of("simulations");
+  private static final ApiPath START_PATH = SIM_PATH.append("start");
+  private static final ApiPath.Template SIMULATION_PATH = ApiPath.template("simulations/{id}");
+  private static final ApiPath.Template CLASSNAME_PATH =
+      ApiPath.template("simulations/{id}/classname");
+  private static final TypeReference<List<Simulation>> SIMULATIONS_TYPE =
+      new TypeReference<List<Simulation>>() {};
+  private static final ProjectionReader<SimulationSummary> SIMULATION_SUMMARIES_READER =
+      new ProjectionReader<>(
+          SimulationSummary.class,
+          Arrays.asList("id", "name", "className", "build.pkgId"),
+          values ->
+              new SimulationSummary(
+                  values.uuid(0), values.string(1), values.string(2), values.uuid(3)));
 
-  SimulationsApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  SimulationsApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   Simulation getSimulation(UUID simulationId) throws EnterprisePluginException {
     return getJson(
-        SIM_PATH.append(simulationId.toString()),
+        SIMULATION_PATH.expand(simulationId.toString()),
         Simulation.class,
         response -> {
           if (response.code == HttpURLConnection.HTTP_NOT_FOUND) {
@@ -45,10 +60,14 @@ class SimulationsApiRequests extends AbstractApiRequests {
   }
 
   Simulations listSimulations() throws EnterprisePluginException {
-    List<Simulation> data = getJson(SIM_PATH, new TypeReference<List<Simulation>>() {});
+    List<Simulation> data = getJson(SIM_PATH, SIMULATIONS_TYPE);
     return new Simulations(data);
   }
 
+  List<SimulationSummary> listSimulationSummaries() throws EnterprisePluginException {
+    return getJsonProjections(SIM_PATH, SIMULATION_SUMMARIES_READER);
+  }
+
   Simulation createSimulation(SimulationCreationPayload simulation)
       throws EnterprisePluginException {
     return postJson(SIM_PATH, simulation, Simulation.class);
@@ -56,15 +75,14 @@ class SimulationsApiRequests extends AbstractApiRequests {
 
   RunSummary startSimulation(UUID simulationId, StartOptions options)
       throws EnterprisePluginException {
-    final ApiPath path =
-        SIM_PATH.append("start").addQueryParam("simulation", simulationId.toString());
+    final ApiPath path = START_PATH.addQueryParam("simulation", simulationId.toString());
     return postJson(path, options, RunSummary.class);
   }
 
   SimulationClassName updateSimulationClassName(UUID simulationId, String className)
       throws EnterprisePluginException {
     return putJson(
-        SIM_PATH.append(simulationId.toString(), "classname"),
+        CLASSNAME_PATH.expand(simulationId.toString()),
         new SimulationClassName(className),
         SimulationClassName.class);
   }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.exceptions.ApiCallIOException;
+import io.gatling.plugin.exceptions.EnterprisePluginException;
+import io.gatling.plugin.util.LambdaExceptionUtil.SupplierWithExceptions;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces identical calls running concurrently in the same JVM, e.g. from the parallel projects
+ * of a build each applying the plugin: the first caller executes the call, the others wait for it
+ * and share its result, or its exception.
+ *
+ * <p>A call only joins one still in flight: once completed, the next identical call is executed
+ * again. Shared results must not be modified by the callers.
+ */
+final class SingleFlight {
+
+  private static final ConcurrentMap<String, CompletableFuture<Object>> IN_FLIGHT =
+      new ConcurrentHashMap<>();
+
+  private SingleFlight() {}
+
+  @SuppressWarnings("unchecked")
+  static <T> T execute(String key, SupplierWithExceptions<T, EnterprisePluginException> call)
+      throws EnterprisePluginException {
+    final CompletableFuture<Object> future = new CompletableFuture<>();
+    final CompletableFuture<Object> inFlight = IN_FLIGHT.putIfAbsent(key, future);
+    if (inFlight != null) {
+      return (T) await(inFlight);
+    }
+
+    try {
+      final T result = call.get();
+      IN_FLIGHT.remove(key, future);
+      future.complete(result);
+      return result;
+    } catch (EnterprisePluginException | RuntimeException | Error e) {
+      IN_FLIGHT.remove(key, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> inFlight) throws EnterprisePluginException {
+    try {
+      return inFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ApiCallIOException(new InterruptedIOException(e.getMessage()));
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof EnterprisePluginException) {
+        throw (EnterprisePluginException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw (Error) cause;
+      }
+    }
+  }
+}
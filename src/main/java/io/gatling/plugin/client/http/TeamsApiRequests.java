@@ -21,12 +21,13 @@ import io.gatling.plugin.model.Teams;
 import java.net.URL;
 
 class TeamsApiRequests extends AbstractApiRequests {
+  private static final ApiPath TEAMS_PATH = ApiPath.of("teams");
 
-  TeamsApiRequests(URL baseUrl, String token) {
-    super(baseUrl, token);
+  TeamsApiRequests(URL baseUrl, String token, HttpTransport transport) {
+    super(baseUrl, token, transport);
   }
 
   Teams listTeams() throws EnterprisePluginException {
-    return getJson(ApiPath.of("teams"), Teams.class);
+    return getJson(TEAMS_PATH, Teams.class);
   }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Sizes of the response bodies received by a {@link HttpEnterpriseClient} */
+public final class TransferMetrics {
+
+  private final AtomicLong responses = new AtomicLong();
+  private final AtomicLong compressedResponses = new AtomicLong();
+  private final AtomicLong transferredBytes = new AtomicLong();
+  private final AtomicLong decodedBytes = new AtomicLong();
+
+  void record(TransportResponse response) {
+    responses.incrementAndGet();
+    if (response.transferredLength != response.body.length) {
+      compressedResponses.incrementAndGet();
+    }
+    transferredBytes.addAndGet(response.transferredLength);
+    decodedBytes.addAndGet(response.body.length);
+  }
+
+  public long responses() {
+    return responses.get();
+  }
+
+  public long compressedResponses() {
+    return compressedResponses.get();
+  }
+
+  /** @return the size of the response bodies as transferred, i.e. compressed if they were */
+  public long transferredBytes() {
+    return transferredBytes.get();
+  }
+
+  /** @return the size of the response bodies once decoded */
+  public long decodedBytes() {
+    return decodedBytes.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TransferMetrics{responses=%s,compressedResponses=%s,transferredBytes=%s,decodedBytes=%s}",
+        responses(), compressedResponses(), transferredBytes(), decodedBytes());
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** HTTP request executed by a {@link HttpTransport} */
+final class TransportRequest {
+
+  final String method;
+  final URL url;
+  private final Map<String, String> headers = new LinkedHashMap<>();
+  private RequestBody body;
+
+  TransportRequest(String method, URL url) {
+    this.method = method;
+    this.url = url;
+  }
+
+  TransportRequest header(String name, String value) {
+    headers.put(name, value);
+    return this;
+  }
+
+  TransportRequest body(RequestBody body) {
+    this.body = body;
+    return this;
+  }
+
+  Map<String, String> headers() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  /** @return the body of the request, or null if there's none */
+  RequestBody body() {
+    return body;
+  }
+}
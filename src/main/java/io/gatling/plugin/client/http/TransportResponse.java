@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** HTTP response returned by a {@link HttpTransport} */
+final class TransportResponse {
+
+  final int code;
+  /** Decoded body */
+  final byte[] body;
+  /** Length of the body as transferred, before decoding */
+  final long transferredLength;
+
+  private final Map<String, List<String>> headers;
+
+  TransportResponse(
+      int code, Map<String, List<String>> headers, byte[] body, long transferredLength) {
+    this.code = code;
+    this.body = body;
+    this.transferredLength = transferredLength;
+    this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      // HttpURLConnection exposes the status line as a header with a null name
+      if (header.getKey() != null && !header.getValue().isEmpty()) {
+        this.headers.put(header.getKey(), header.getValue());
+      }
+    }
+  }
+
+  /** @return the first value of the given header, or null if it's missing */
+  String header(String name) {
+    final List<String> values = headers.get(name);
+    return values != null ? values.get(0) : null;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.InputStreamUtils;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.util.Map;
+
+/** Default {@link HttpTransport}, based on {@link HttpURLConnection} */
+final class UrlConnectionTransport implements HttpTransport {
+
+  static final UrlConnectionTransport INSTANCE = new UrlConnectionTransport();
+
+  private static final String CONNECTION_HEADER = "Connection";
+  private static final String CLOSE = "close";
+
+  private UrlConnectionTransport() {}
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final HttpURLConnection connection = openConnection(request, false);
+    try {
+      final RequestBody body = request.body();
+      if (body != null) {
+        connection.setDoOutput(true);
+        // stream the body instead of buffering it in memory to compute its length
+        connection.setFixedLengthStreamingMode(body.contentLength());
+        try (OutputStream os = connection.getOutputStream()) {
+          body.writeTo(os);
+        }
+      } else {
+        connection.connect();
+      }
+      return readResponse(connection);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  @Override
+  public void preConnect(TransportRequest request) throws IOException {
+    // the connection goes back to the JDK keep-alive cache once the response is fully read, and
+    // the next request to the same server takes it from there
+    final HttpURLConnection connection = openConnection(request, true);
+    if (connection.getResponseCode() < 0) {
+      throw new IOException("Response could not be parsed as HTTP");
+    }
+    try (final InputStream is = getRealInputStream(connection)) {
+      if (is != null) {
+        InputStreamUtils.readAllBytes(is, -1);
+      }
+    }
+  }
+
+  private HttpURLConnection openConnection(TransportRequest request, boolean keepAlive)
+      throws IOException {
+    final URLConnection urlConnection = request.url.openConnection();
+    if (urlConnection instanceof HttpURLConnection) {
+      final HttpURLConnection connection = (HttpURLConnection) urlConnection;
+      connection.setRequestMethod(request.method);
+      for (Map.Entry<String, String> header : request.headers().entrySet()) {
+        connection.setRequestProperty(header.getKey(), header.getValue());
+      }
+      if (!keepAlive) {
+        connection.setRequestProperty(CONNECTION_HEADER, CLOSE);
+      }
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(READ_TIMEOUT_MS);
+      return connection;
+    } else {
+      throw new IllegalStateException(
+          "Expected an HttpURLConnection, got " + urlConnection.getClass().getName());
+    }
+  }
+
+  private InputStream getRealInputStream(HttpURLConnection connection) {
+    try {
+      return connection.getInputStream();
+    } catch (IOException e) {
+      return connection.getErrorStream();
+    }
+  }
+
+  private TransportResponse readResponse(HttpURLConnection connection) throws IOException {
+    int status = connection.getResponseCode();
+    if (status < 0) {
+      throw new IOException("Response could not be parsed as HTTP");
+    }
+
+    try (final InputStream is = getRealInputStream(connection)) {
+      if (is == null) {
+        return new TransportResponse(status, connection.getHeaderFields(), new byte[0], 0);
+      }
+      final CountingInputStream transferred = new CountingInputStream(is);
+      final String contentEncoding =
+          connection.getHeaderField(ContentEncoding.CONTENT_ENCODING_HEADER);
+      // the Content-Length of an encoded body isn't the length of the decoded one
+      final byte[] body =
+          InputStreamUtils.readAllBytes(
+              ContentEncoding.decode(transferred, contentEncoding),
+              contentEncoding == null ? connection.getContentLengthLong() : -1);
+      return new TransportResponse(status, connection.getHeaderFields(), body, transferred.count);
+    }
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      if (b != -1) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+}
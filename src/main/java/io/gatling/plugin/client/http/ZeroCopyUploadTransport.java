@@ -0,0 +1,242 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import io.gatling.plugin.util.InputStreamUtils;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * {@link HttpTransport} sending file uploads over plain HTTP without copying them through user
+ * space: the request head is written on a {@link SocketChannel}, then the file is sent with {@link
+ * FileChannel#transferTo}, i.e. {@code sendfile} on Linux.
+ *
+ * <p>Only plain HTTP uploads going directly to the server are handled, other requests are executed
+ * by the delegate transport: TLS encrypts the body in user space anyway, and proxies are configured
+ * through the delegate.
+ *
+ * <p>Enabled with the {@value #ZERO_COPY_UPLOAD_PROPERTY} system property: these uploads bypass the
+ * HTTP stack of the delegate, e.g. its authentication and keep-alive handling.
+ */
+final class ZeroCopyUploadTransport implements HttpTransport {
+
+  static final String ZERO_COPY_UPLOAD_PROPERTY = "gatling.enterprise.zeroCopyUpload";
+
+  private final HttpTransport delegate;
+
+  ZeroCopyUploadTransport(HttpTransport delegate) {
+    this.delegate = delegate;
+  }
+
+  static boolean isEnabled() {
+    return Boolean.getBoolean(ZERO_COPY_UPLOAD_PROPERTY);
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final RequestBody body = request.body();
+    if (body == null || body.file == null || !isDirectHttp(request.url)) {
+      return delegate.execute(request);
+    }
+
+    try (SocketChannel channel = SocketChannel.open();
+        FileChannel file = FileChannel.open(body.file.toPath(), StandardOpenOption.READ)) {
+      final Socket socket = channel.socket();
+      socket.connect(
+          new InetSocketAddress(request.url.getHost(), port(request.url)), CONNECT_TIMEOUT_MS);
+      socket.setSoTimeout(READ_TIMEOUT_MS);
+
+      final long contentLength = file.size();
+      final ByteBuffer head = ByteBuffer.wrap(head(request, contentLength));
+      while (head.hasRemaining()) {
+        channel.write(head);
+      }
+      long position = 0;
+      while (position < contentLength) {
+        position += file.transferTo(position, contentLength - position, channel);
+      }
+
+      // the socket adapter honors the read timeout, unlike the blocking channel
+      return readResponse(new BufferedInputStream(socket.getInputStream()));
+    }
+  }
+
+  @Override
+  public void preConnect(TransportRequest request) throws IOException {
+    // the uploads handled here open their own connection
+    delegate.preConnect(request);
+  }
+
+  private static boolean isDirectHttp(URL url) {
+    if (!"http".equals(url.getProtocol())) {
+      return false;
+    }
+    final ProxySelector proxySelector = ProxySelector.getDefault();
+    if (proxySelector == null) {
+      return true;
+    }
+    try {
+      final List<Proxy> proxies = proxySelector.select(url.toURI());
+      return proxies.isEmpty() || proxies.get(0).type() == Proxy.Type.DIRECT;
+    } catch (URISyntaxException e) {
+      return false;
+    }
+  }
+
+  private static int port(URL url) {
+    return url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+  }
+
+  private static byte[] head(TransportRequest request, long contentLength) {
+    final URL url = request.url;
+    final StringBuilder head = new StringBuilder(512);
+    head.append(request.method)
+        .append(' ')
+        .append(url.getFile().isEmpty() ? "/" : url.getFile())
+        .append(" HTTP/1.1\r\n");
+    head.append("Host: ").append(url.getHost());
+    if (url.getPort() != -1 && url.getPort() != url.getDefaultPort()) {
+      head.append(':').append(url.getPort());
+    }
+    head.append("\r\n");
+    for (Map.Entry<String, String> header : request.headers().entrySet()) {
+      head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+    }
+    head.append("Content-Length: ").append(contentLength).append("\r\n");
+    head.append("Connection: close\r\n\r\n");
+    return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  static TransportResponse readResponse(InputStream in) throws IOException {
+    int code;
+    Map<String, List<String>> headers;
+    do {
+      final String statusLine = readLine(in);
+      final String[] statusParts = statusLine.split(" ", 3);
+      if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/")) {
+        throw new IOException("Response could not be parsed as HTTP: " + statusLine);
+      }
+      code = parseInt(statusParts[1], 10);
+      headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      String line;
+      while (!(line = readLine(in)).isEmpty()) {
+        final int separator = line.indexOf(':');
+        if (separator > 0) {
+          headers
+              .computeIfAbsent(line.substring(0, separator).trim(), name -> new ArrayList<>(1))
+              .add(line.substring(separator + 1).trim());
+        }
+      }
+      // skip the interim responses, e.g. 100 Continue
+    } while (code >= 100 && code < 200);
+
+    final byte[] body;
+    final List<String> transferEncoding = headers.get("Transfer-Encoding");
+    final List<String> contentLength = headers.get("Content-Length");
+    if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      body = new byte[0];
+    } else if (transferEncoding != null && isChunked(transferEncoding)) {
+      body = readChunked(in);
+    } else if (transferEncoding == null && contentLength != null) {
+      // the request closes the connection: the body ends with the stream
+      final int length = parseInt(contentLength.get(0), 10);
+      body = InputStreamUtils.readAllBytes(in, length);
+      if (body.length < length) {
+        throw new EOFException("Connection closed before the end of the response");
+      }
+    } else {
+      // Connection: close, also when the final transfer coding isn't chunked
+      body = InputStreamUtils.readAllBytes(in, -1);
+    }
+    final List<String> contentEncoding = headers.get(ContentEncoding.CONTENT_ENCODING_HEADER);
+    return new TransportResponse(
+        code,
+        headers,
+        ContentEncoding.decode(body, contentEncoding != null ? contentEncoding.get(0) : null),
+        body.length);
+  }
+
+  /** @return whether chunked is the final transfer coding, e.g. of {@code gzip, chunked} */
+  private static boolean isChunked(List<String> transferEncoding) {
+    final String codings = String.join(",", transferEncoding);
+    return codings.substring(codings.lastIndexOf(',') + 1).trim().equalsIgnoreCase("chunked");
+  }
+
+  private static int parseInt(String value, int radix) throws IOException {
+    try {
+      return Integer.parseInt(value, radix);
+    } catch (NumberFormatException e) {
+      throw new IOException("Response could not be parsed as HTTP: invalid number " + value);
+    }
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    final StringBuilder line = new StringBuilder();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b == -1) {
+        throw new EOFException("Connection closed before the end of the response");
+      }
+      line.append((char) b);
+    }
+    final int length = line.length();
+    if (length > 0 && line.charAt(length - 1) == '\r') {
+      line.setLength(length - 1);
+    }
+    return line.toString();
+  }
+
+  private static byte[] readFully(InputStream in, int length) throws IOException {
+    final byte[] bytes = new byte[length];
+    int offset = 0;
+    while (offset < length) {
+      final int read = in.read(bytes, offset, length - offset);
+      if (read == -1) {
+        throw new EOFException("Connection closed before the end of the response");
+      }
+      offset += read;
+    }
+    return bytes;
+  }
+
+  private static byte[] readChunked(InputStream in) throws IOException {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    while (true) {
+      final String sizeLine = readLine(in);
+      final int extension = sizeLine.indexOf(';');
+      final int size =
+          parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+      if (size == 0) {
+        // trailers
+        while (!readLine(in).isEmpty()) {}
+        return body.toByteArray();
+      }
+      body.write(readFully(in, size));
+      readLine(in);
+    }
+  }
+}
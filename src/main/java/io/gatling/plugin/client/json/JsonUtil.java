@@ -17,14 +17,95 @@
 package io.gatling.plugin.client.json;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public final class JsonUtil {
   private JsonUtil() {}
 
-  public static final ObjectMapper JSON_MAPPER =
-      new ObjectMapper()
-          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-          .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+  /**
+   * Set to {@code true} to register a Jackson module generating the (de)serializers bytecode
+   * instead of using reflection: Blackbird, or else Afterburner, whichever is on the classpath as
+   * neither is a dependency. Disabled by default: the models are built with their {@code
+   * JsonCreator} constructors, which these modules barely speed up, see {@code
+   * JsonMappingBenchmark}.
+   */
+  public static final String BYTECODE_MODULE_PROPERTY = "gatling.enterprise.jsonBytecodeModule";
+
+  private static final String BLACKBIRD_MODULE =
+      "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+  private static final String AFTERBURNER_MODULE =
+      "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+  public static final ObjectMapper JSON_MAPPER = configure(new ObjectMapper());
+
+  /**
+   * Same data binding as {@link #JSON_MAPPER}, but reading and writing the binary <a
+   * href="https://github.com/FasterXML/smile-format-specification">Smile</a> format, which is
+   * smaller and faster to parse than JSON text.
+   */
+  public static final ObjectMapper SMILE_MAPPER = configure(new ObjectMapper(new SmileFactory()));
+
+  public static final Bindings JSON_BINDINGS = new Bindings(JSON_MAPPER);
+  public static final Bindings SMILE_BINDINGS = new Bindings(SMILE_MAPPER);
+
+  /**
+   * Registry of the readers and writers of a mapper, built once per type. Unlike the {@link
+   * ObjectMapper} methods, which resolve the type and look up its (de)serializer on each call, they
+   * are ready to use, immutable and thread safe.
+   */
+  public static final class Bindings {
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private Bindings(ObjectMapper mapper) {
+      this.mapper = mapper;
+    }
+
+    public ObjectReader reader(Type type) {
+      // unlike computeIfAbsent, get doesn't lock on Java 8
+      final ObjectReader reader = readers.get(type);
+      return reader != null
+          ? reader
+          : readers.computeIfAbsent(type, t -> mapper.readerFor(mapper.constructType(t)));
+    }
+
+    public ObjectReader reader(TypeReference<?> typeRef) {
+      return reader(typeRef.getType());
+    }
+
+    public ObjectWriter writer(Type type) {
+      final ObjectWriter writer = writers.get(type);
+      return writer != null
+          ? writer
+          : writers.computeIfAbsent(type, t -> mapper.writerFor(mapper.constructType(t)));
+    }
+  }
+
+  private static ObjectMapper configure(ObjectMapper mapper) {
+    mapper
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    if (Boolean.getBoolean(BYTECODE_MODULE_PROPERTY)) {
+      for (String module : new String[] {BLACKBIRD_MODULE, AFTERBURNER_MODULE}) {
+        try {
+          mapper.registerModule(
+              (Module) Class.forName(module).getDeclaredConstructor().newInstance());
+          break;
+        } catch (ReflectiveOperationException | LinkageError e) {
+          // optional dependency, not on the classpath
+        }
+      }
+    }
+    return mapper;
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Reads a JSON array of objects, e.g. a listing response, into lightweight projections. Only the
+ * projected fields are pulled from the stream of tokens; the other fields, however nested, are
+ * skipped without building any tree nor model.
+ *
+ * <p>Fields are selected by path, with dots to select a field of a nested object, e.g. {@code
+ * build.pkgId}. Projected fields must be scalars: their values are passed as text to the factory of
+ * the projection, or null when missing.
+ *
+ * <p>Readers are immutable and thread safe, and don't depend on the format: they can read JSON text
+ * or Smile, depending on the given parser.
+ */
+public final class ProjectionReader<T> {
+
+  /** Values of the projected fields of an element, in the order of the field paths */
+  public static final class Values {
+    private final String[] values;
+
+    private Values(String[] values) {
+      this.values = values;
+    }
+
+    public String string(int index) {
+      return values[index];
+    }
+
+    public UUID uuid(int index) {
+      final String value = values[index];
+      return value != null ? UUID.fromString(value) : null;
+    }
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private int index = -1;
+  }
+
+  private final Class<T> type;
+  private final int fieldCount;
+  private final Node root = new Node();
+  private final Function<Values, T> factory;
+
+  /**
+   * @param type the projection type
+   * @param fieldPaths the paths of the projected fields
+   * @param factory builds a projection from the values of its fields, may throw a runtime
+   *     exception, e.g. when a required value is missing
+   */
+  public ProjectionReader(Class<T> type, List<String> fieldPaths, Function<Values, T> factory) {
+    this.type = type;
+    this.fieldCount = fieldPaths.size();
+    this.factory = factory;
+    for (int i = 0; i < fieldCount; i++) {
+      Node node = root;
+      for (String name : fieldPaths.get(i).split("\\.")) {
+        node = node.children.computeIfAbsent(name, n -> new Node());
+      }
+      node.index = i;
+    }
+  }
+
+  public Class<T> type() {
+    return type;
+  }
+
+  /**
+   * @param parser a parser on a JSON array of objects, positioned before the array
+   * @return the projections of the array elements
+   * @throws IOException if the content isn't an array of objects, or a projection can't be built
+   */
+  public List<T> readList(JsonParser parser) throws IOException {
+    if (parser.nextToken() != JsonToken.START_ARRAY) {
+      throw new JsonMappingException(parser, "Expected an array of " + type.getSimpleName());
+    }
+    final List<T> result = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+      final String[] values = new String[fieldCount];
+      readObject(parser, root, values);
+      try {
+        result.add(factory.apply(new Values(values)));
+      } catch (RuntimeException e) {
+        throw new JsonMappingException(
+            parser, "Invalid " + type.getSimpleName() + ": " + e.getMessage(), e);
+      }
+    }
+    if (token != JsonToken.END_ARRAY) {
+      throw new JsonMappingException(parser, "Expected an object of " + type.getSimpleName());
+    }
+    return result;
+  }
+
+  private static void readObject(JsonParser parser, Node node, String[] values) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final Node child = node.children.get(parser.getCurrentName());
+      final JsonToken value = parser.nextToken();
+      if (child != null && child.index >= 0 && value.isScalarValue()) {
+        values[child.index] = value != JsonToken.VALUE_NULL ? parser.getText() : null;
+      } else if (child != null && value == JsonToken.START_OBJECT) {
+        readObject(parser, child, values);
+      } else {
+        // no-op on scalars
+        parser.skipChildren();
+      }
+    }
+  }
+}
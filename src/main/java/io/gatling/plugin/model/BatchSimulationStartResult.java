@@ -0,0 +1,78 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.model;
+
+import static io.gatling.plugin.util.ObjectsUtil.nonNullParam;
+
+import io.gatling.plugin.exceptions.EnterprisePluginException;
+import java.util.Objects;
+import java.util.UUID;
+
+/** Outcome of starting one simulation of a batch: either a start result, or a failure */
+public class BatchSimulationStartResult {
+
+  public final UUID simulationId;
+  /** null if the simulation failed to start */
+  public final SimulationStartResult startResult;
+  /** null if the simulation was started */
+  public final EnterprisePluginException failure;
+
+  private BatchSimulationStartResult(
+      UUID simulationId, SimulationStartResult startResult, EnterprisePluginException failure) {
+    nonNullParam(simulationId, "simulationId");
+    this.simulationId = simulationId;
+    this.startResult = startResult;
+    this.failure = failure;
+  }
+
+  public static BatchSimulationStartResult started(SimulationStartResult startResult) {
+    nonNullParam(startResult, "startResult");
+    return new BatchSimulationStartResult(startResult.simulation.id, startResult, null);
+  }
+
+  public static BatchSimulationStartResult failed(
+      UUID simulationId, EnterprisePluginException failure) {
+    nonNullParam(failure, "failure");
+    return new BatchSimulationStartResult(simulationId, null, failure);
+  }
+
+  public boolean isStarted() {
+    return startResult != null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BatchSimulationStartResult that = (BatchSimulationStartResult) o;
+    return Objects.equals(simulationId, that.simulationId)
+        && Objects.equals(startResult, that.startResult)
+        && Objects.equals(failure, that.failure);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(simulationId, startResult, failure);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "BatchSimulationStartResult{simulationId=%s, startResult=%s, failure=%s}",
+        simulationId, startResult, failure);
+  }
+}
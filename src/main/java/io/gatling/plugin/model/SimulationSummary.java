@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.model;
+
+import static io.gatling.plugin.util.ObjectsUtil.nonNullParam;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/** Projection of a {@link Simulation} on the fields needed to list and choose simulations */
+public final class SimulationSummary {
+
+  public final UUID id;
+  public final String name;
+  public final String className;
+  public final UUID pkgId;
+
+  public SimulationSummary(UUID id, String name, String className, UUID pkgId) {
+    nonNullParam(id, "id");
+    nonNullParam(name, "name");
+    nonNullParam(className, "className");
+    nonNullParam(pkgId, "pkgId");
+    this.id = id;
+    this.name = name;
+    this.className = className;
+    this.pkgId = pkgId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SimulationSummary that = (SimulationSummary) o;
+    return id.equals(that.id)
+        && name.equals(that.name)
+        && className.equals(that.className)
+        && pkgId.equals(that.pkgId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, name, className, pkgId);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "SimulationSummary{id='%s',name='%s',className='%s',pkgId='%s'}",
+        id, name, className, pkgId);
+  }
+}
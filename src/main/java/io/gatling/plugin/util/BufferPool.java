@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per thread pool of the byte buffers used to read and copy streams, see {@link InputStreamUtils}.
+ *
+ * <p>Each thread keeps the largest buffer it has released, up to {@link #MAX_POOLED_SIZE}, so the
+ * pooled size adapts to the payloads the thread handles. A buffer is lent to a single caller at a
+ * time: nested acquisitions on the same thread get a new buffer.
+ */
+public final class BufferPool {
+
+  /** Minimum size of the allocated buffers */
+  public static final int MIN_SIZE = 8 * 1024;
+  /** Larger buffers aren't kept, so that idle threads don't hold much memory */
+  public static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<Slot> SLOTS = ThreadLocal.withInitial(Slot::new);
+
+  private static final LongAdder ACQUISITIONS = new LongAdder();
+  private static final LongAdder ALLOCATIONS = new LongAdder();
+  private static final LongAdder ALLOCATED_BYTES = new LongAdder();
+
+  private BufferPool() {}
+
+  /**
+   * @param minSize the minimum size of the buffer
+   * @return a buffer of at least the given size, to be given back with {@link #release(byte[])}
+   */
+  public static byte[] acquire(int minSize) {
+    ACQUISITIONS.increment();
+    final Slot slot = SLOTS.get();
+    final byte[] pooled = slot.buffer;
+    if (pooled != null && pooled.length >= minSize) {
+      slot.buffer = null;
+      return pooled;
+    }
+    return allocate(minSize);
+  }
+
+  /**
+   * @param buffer a buffer obtained from {@link #acquire(int)}, full up to the given length
+   * @param length the length of the data to keep
+   * @return a buffer twice as large, or more if needed, holding the data of the given one
+   */
+  public static byte[] grow(byte[] buffer, int length) {
+    final byte[] grown = allocate(buffer.length + 1);
+    System.arraycopy(buffer, 0, grown, 0, length);
+    return grown;
+  }
+
+  /** Gives back a buffer, which must no longer be used by the caller. */
+  public static void release(byte[] buffer) {
+    if (buffer.length > MAX_POOLED_SIZE) {
+      return;
+    }
+    final Slot slot = SLOTS.get();
+    if (slot.buffer == null || slot.buffer.length < buffer.length) {
+      slot.buffer = buffer;
+    }
+  }
+
+  private static byte[] allocate(int minSize) {
+    int size = MIN_SIZE;
+    while (size < minSize && size > 0) {
+      size <<= 1;
+    }
+    if (size <= 0) {
+      // over the largest power of 2 of the int range
+      size = minSize;
+    }
+    ALLOCATIONS.increment();
+    ALLOCATED_BYTES.add(size);
+    return new byte[size];
+  }
+
+  /** @return the counters of this pool since the JVM started */
+  public static Stats stats() {
+    return new Stats(ACQUISITIONS.sum(), ALLOCATIONS.sum(), ALLOCATED_BYTES.sum());
+  }
+
+  public static final class Stats {
+    /** Buffers lent */
+    public final long acquisitions;
+    /** Buffers allocated, when no pooled one was large enough, or when growing */
+    public final long allocations;
+
+    public final long allocatedBytes;
+
+    private Stats(long acquisitions, long allocations, long allocatedBytes) {
+      this.acquisitions = acquisitions;
+      this.allocations = allocations;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "BufferPool.Stats{acquisitions=%d,allocations=%d,allocatedBytes=%d}",
+          acquisitions, allocations, allocatedBytes);
+    }
+  }
+
+  private static final class Slot {
+    private byte[] buffer;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stable directory where the plugins keep files which are expensive to compute and safe to reuse
+ * across runs. Defaults to {@code ~/.gatling/enterprise-plugin-cache}, can be overridden with the
+ * {@code gatling.enterprise.cacheDirectory} system property.
+ */
+public final class CacheDirectory {
+
+  public static final String CACHE_DIRECTORY_PROPERTY = "gatling.enterprise.cacheDirectory";
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final Set<PosixFilePermission> OWNER_ONLY_FILE =
+      PosixFilePermissions.fromString("rw-------");
+  private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY =
+      PosixFilePermissions.fromString("rwx------");
+
+  private CacheDirectory() {}
+
+  /**
+   * @param name name of the cache, e.g. {@code booters}
+   * @return the directory of the given cache, created if needed
+   * @throws IOException if the directory can't be created
+   */
+  public static File resolve(String name) throws IOException {
+    final String configured = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+    final File root =
+        configured != null
+            ? new File(configured)
+            : new File(System.getProperty("user.home"), ".gatling/enterprise-plugin-cache");
+    final File directory = new File(root, name);
+    Files.createDirectories(directory.toPath());
+    return directory;
+  }
+
+  /**
+   * Same as {@link #resolve(String)}, for the caches holding private data, such as secrets or API
+   * responses: the directory is only accessible to its owner.
+   *
+   * @param name name of the cache, e.g. {@code workers}
+   * @return the directory of the given cache, created if needed
+   * @throws IOException if the directory can't be created or restricted
+   */
+  public static File resolvePrivate(String name) throws IOException {
+    final File directory = resolve(name);
+    restrictToOwner(directory.toPath());
+    return directory;
+  }
+
+  /**
+   * Creates a temporary file only accessible to its owner, to be written then {@link #publish(Path,
+   * Path) published} to a private cache.
+   */
+  public static File createPrivateTempFile(File directory, String prefix, String suffix)
+      throws IOException {
+    final Path file = Files.createTempFile(directory.toPath(), prefix, suffix);
+    restrictToOwner(file);
+    return file.toFile();
+  }
+
+  /**
+   * @return whether the given file is only accessible to its owner, always true when the file
+   *     system doesn't have POSIX permissions
+   * @throws IOException if the permissions of the file can't be read, e.g. if it doesn't exist
+   */
+  public static boolean isOwnerOnly(Path path) throws IOException {
+    if (!isPosix(path)) {
+      return true;
+    }
+    return OWNER_ONLY_DIRECTORY.containsAll(Files.getPosixFilePermissions(path));
+  }
+
+  private static void restrictToOwner(Path path) throws IOException {
+    if (isPosix(path)) {
+      Files.setPosixFilePermissions(
+          path, Files.isDirectory(path) ? OWNER_ONLY_DIRECTORY : OWNER_ONLY_FILE);
+    } else {
+      // revoke the permissions of everybody, then grant them back to the owner
+      final File file = path.toFile();
+      final boolean directory = file.isDirectory();
+      file.setReadable(false, false);
+      file.setWritable(false, false);
+      file.setExecutable(false, false);
+      file.setReadable(true, true);
+      file.setWritable(true, true);
+      file.setExecutable(directory, true);
+    }
+  }
+
+  private static boolean isPosix(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  /** @return a hexadecimal SHA-256 digest of the given components, suitable for a file name */
+  public static String keyOf(List<String> components) {
+    try {
+      final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      for (String component : components) {
+        sha256.update(component.getBytes(StandardCharsets.UTF_8));
+        // separator, so that ["ab", "c"] and ["a", "bc"] don't collide
+        sha256.update((byte) 0);
+      }
+      final byte[] digest = sha256.digest();
+      final char[] hex = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++) {
+        hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+        hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+      }
+      return new String(hex);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cache key algorithm was not available", e);
+    }
+  }
+
+  /**
+   * Move a fully written temporary file to its final location in a cache, so that concurrent
+   * readers never see a partially written file.
+   */
+  public static void publish(Path tempFile, Path target) throws IOException {
+    try {
+      Files.move(
+          tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
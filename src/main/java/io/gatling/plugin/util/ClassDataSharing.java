@@ -0,0 +1,161 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import io.gatling.plugin.io.PluginLogger;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dynamic class data sharing (AppCDS) archive of a forked JVM, available from Java 13.
+ *
+ * <p>The first run for a given classpath dumps the loaded classes into an archive on exit; the next
+ * runs map that archive instead of loading and verifying the same classes again. Archives are keyed
+ * by the java executable, main class and classpath, and stamped with the size and modification time
+ * of each classpath element: any change creates a new archive and deletes the stale ones.
+ */
+final class ClassDataSharing {
+
+  static final int MIN_JAVA_VERSION = 13;
+
+  private static final String CDS_CACHE_NAME = "cds";
+  private static final String ARCHIVE_SUFFIX = ".jsa";
+  // archives still being dumped by a running JVM, never deleted as stale
+  private static final String TEMP_ARCHIVE_SUFFIX = ".jsa.tmp";
+  private static final int STAMP_LENGTH = 16;
+
+  private final File archive;
+  private final File tempArchive;
+  private final String keyPrefix;
+  private final PluginLogger log;
+
+  private ClassDataSharing(File archive, File tempArchive, String keyPrefix, PluginLogger log) {
+    this.archive = archive;
+    this.tempArchive = tempArchive;
+    this.keyPrefix = keyPrefix;
+    this.log = log;
+  }
+
+  /**
+   * @return the class data sharing setup for this run, or null if it's not available, e.g. because
+   *     of the Java version or because the user already configured class data sharing
+   */
+  static ClassDataSharing forRun(
+      File javaExecutable,
+      String mainClassName,
+      List<String> classpath,
+      List<String> jvmArgs,
+      PluginLogger log)
+      throws IOException {
+    if (JvmErgonomics.javaMajorVersion(javaExecutable) < MIN_JAVA_VERSION) {
+      return null;
+    }
+    for (String jvmArg : jvmArgs) {
+      if (jvmArg.startsWith("-Xshare")
+          || jvmArg.startsWith("-XX:SharedArchiveFile")
+          || jvmArg.startsWith("-XX:ArchiveClassesAtExit")) {
+        return null;
+      }
+    }
+
+    final List<String> keyComponents = new ArrayList<>(classpath.size() + 2);
+    keyComponents.add(javaExecutable.getCanonicalPath());
+    keyComponents.add(mainClassName);
+    keyComponents.addAll(classpath);
+    final String key = CacheDirectory.keyOf(keyComponents);
+
+    final List<String> stampComponents = new ArrayList<>(classpath.size() + jvmArgs.size() + 1);
+    stampComponents.add(stamp(javaExecutable));
+    for (String el : classpath) {
+      stampComponents.add(stamp(new File(el)));
+    }
+    // some JVM options, e.g. the GC, make an archive unusable
+    stampComponents.addAll(jvmArgs);
+    final String stamp = CacheDirectory.keyOf(stampComponents).substring(0, STAMP_LENGTH);
+
+    final File directory = CacheDirectory.resolve(CDS_CACHE_NAME);
+    final File archive = new File(directory, key + "-" + stamp + ARCHIVE_SUFFIX);
+    final File tempArchive =
+        archive.isFile() ? null : File.createTempFile(key + "-", TEMP_ARCHIVE_SUFFIX, directory);
+    if (tempArchive != null) {
+      // the JVM only dumps the archive if the file doesn't exist yet
+      tempArchive.delete();
+    }
+    return new ClassDataSharing(archive, tempArchive, key + "-", log);
+  }
+
+  private static String stamp(File file) {
+    return file.getPath() + ':' + file.length() + ':' + file.lastModified();
+  }
+
+  /** @return the JVM options to append to the forked JVM command line */
+  List<String> jvmOptions() {
+    final List<String> options = new ArrayList<>(2);
+    if (tempArchive == null) {
+      options.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+    } else {
+      log.info("Creating a class data sharing archive to speed up the next runs");
+      options.add("-XX:ArchiveClassesAtExit=" + tempArchive.getAbsolutePath());
+    }
+    // unsupported or unusable archives are not a reason to fail the run, or to clutter its output
+    options.add("-Xlog:cds*=off");
+    return Collections.unmodifiableList(options);
+  }
+
+  /**
+   * Must be called once the forked JVM has exited.
+   *
+   * @param successful whether or not the run was successful
+   */
+  void afterRun(boolean successful) {
+    if (tempArchive == null) {
+      return;
+    }
+    try {
+      if (successful && tempArchive.length() > 0) {
+        CacheDirectory.publish(tempArchive.toPath(), archive.toPath());
+        deleteStaleArchives();
+      }
+    } catch (IOException e) {
+      log.error("Failed to save the class data sharing archive: " + e.getMessage());
+    } finally {
+      tempArchive.delete();
+    }
+  }
+
+  private void deleteStaleArchives() {
+    // only the complete archives of the same key: <key>-<stamp>.jsa
+    final int archiveNameLength = keyPrefix.length() + STAMP_LENGTH + ARCHIVE_SUFFIX.length();
+    final File[] staleArchives =
+        archive
+            .getParentFile()
+            .listFiles(
+                (dir, name) ->
+                    name.length() == archiveNameLength
+                        && name.startsWith(keyPrefix)
+                        && name.endsWith(ARCHIVE_SUFFIX)
+                        && !name.equals(archive.getName()));
+    if (staleArchives != null) {
+      for (File staleArchive : staleArchives) {
+        staleArchive.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides the threads running the concurrent operations of the plugins, e.g. the API calls of a
+ * batch deploy. Plugins may provide their own, e.g. to share the thread pools of their build tool.
+ */
+@FunctionalInterface
+public interface ExecutorProvider {
+
+  /**
+   * @param name name of the operation, used to name the threads
+   * @param maxConcurrency maximum number of tasks running at the same time, at least 1
+   * @return a new executor, shut down by the caller once the operation completes
+   */
+  ExecutorService newExecutor(String name, int maxConcurrency);
+
+  /** @return a provider of daemon platform threads, one per concurrent task */
+  static ExecutorProvider platformThreads() {
+    return ExecutorProviders::newPlatformThreadsExecutor;
+  }
+
+  /**
+   * Virtual threads are cheap enough to run hundreds of blocking API calls concurrently, and don't
+   * need to be pooled.
+   *
+   * @return a provider of virtual threads, available from Java 21, or {@link #platformThreads()} on
+   *     older Java versions
+   */
+  static ExecutorProvider virtualThreads() {
+    return ExecutorProviders.virtualThreadsSupported()
+        ? ExecutorProviders::newVirtualThreadsExecutor
+        : platformThreads();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Implementations of {@link ExecutorProvider} */
+final class ExecutorProviders {
+
+  private ExecutorProviders() {}
+
+  static ExecutorService newPlatformThreadsExecutor(String name, int maxConcurrency) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        maxConcurrency,
+        r -> {
+          final Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  // called through reflection as this library targets Java 8
+  private static final class VirtualThreadsHolder {
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+      Method ofVirtual = null;
+      Method name = null;
+      Method factory = null;
+      Method newThreadPerTaskExecutor = null;
+      try {
+        ofVirtual = Thread.class.getMethod("ofVirtual");
+        name =
+            Class.forName("java.lang.Thread$Builder$OfVirtual")
+                .getMethod("name", String.class, long.class);
+        factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+        newThreadPerTaskExecutor =
+            Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        // a preview feature before Java 21, only enabled with --enable-preview
+        ofVirtual.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        ofVirtual = null;
+      }
+      OF_VIRTUAL = ofVirtual;
+      NAME = name;
+      FACTORY = factory;
+      NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+  }
+
+  static boolean virtualThreadsSupported() {
+    return VirtualThreadsHolder.OF_VIRTUAL != null;
+  }
+
+  static ExecutorService newVirtualThreadsExecutor(String name, int maxConcurrency) {
+    try {
+      final Object builder =
+          VirtualThreadsHolder.NAME.invoke(
+              VirtualThreadsHolder.OF_VIRTUAL.invoke(null), name + "-", 1L);
+      final ThreadFactory factory = (ThreadFactory) VirtualThreadsHolder.FACTORY.invoke(builder);
+      final ExecutorService executor =
+          (ExecutorService) VirtualThreadsHolder.NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+      return new BoundedExecutorService(executor, maxConcurrency);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Failed to create a virtual threads executor", e);
+    }
+  }
+
+  /**
+   * Runs at most a given number of tasks at the same time on an unbounded executor, such as one
+   * starting a virtual thread per task: the other tasks wait for a permit in their own thread.
+   */
+  private static final class BoundedExecutorService extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    private BoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+      this.delegate = delegate;
+      this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      delegate.execute(
+          () -> {
+            try {
+              permits.acquire();
+            } catch (InterruptedException e) {
+              // shut down before the task could run, don't leave its future pending
+              if (command instanceof Future) {
+                ((Future<?>) command).cancel(false);
+              }
+              return;
+            }
+            try {
+              command.run();
+            } finally {
+              permits.release();
+            }
+          });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
@@ -21,8 +21,11 @@ import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -36,13 +39,35 @@ public final class Fork {
     public ForkException(int exitValue) {
       this.exitValue = exitValue;
     }
+
+    public ForkException(int exitValue, String message) {
+      super(message);
+      this.exitValue = exitValue;
+    }
   }
 
   private static final String ARG_FILE_PREFIX = "gatling-";
   private static final String ARG_FILE_SUFFIX = ".args";
+  private static final String PROPERTIES_FILE_SUFFIX = ".properties";
   private static final String GATLING_MANIFEST_VALUE = "GATLING_ZINC";
-
-  private final File javaExecutable;
+  private static final String BOOTER_CACHE_NAME = "booters";
+  private static final String BOOTER_FILE_PREFIX = "gatlingbooter-";
+  private static final String BOOTER_FILE_SUFFIX = ".jar";
+
+  // properties starting with one of these, followed by a dot
+  private static final Set<String> NON_PROPAGATABLE_PROPERTY_PREFIXES =
+      new HashSet<>(
+          Arrays.asList(
+              "java", "sun", "maven", "file", "awt", "os", "user", "idea", "guice", "hudson"));
+  private static final Set<String> NON_PROPAGATABLE_PROPERTIES =
+      new HashSet<>(
+          Arrays.asList(
+              "line.separator",
+              "path.separator",
+              "classworlds.conf",
+              "org.slf4j.simpleLogger.defaultLogLevel"));
+
+  private File javaExecutable;
   private final String mainClassName;
   private final List<String> classpath;
   private final boolean propagateSystemProperties;
@@ -52,6 +77,14 @@ public final class Fork {
   private final List<String> jvmArgs = new ArrayList<>();
   private final List<String> args = new ArrayList<>();
 
+  private boolean classDataSharing;
+  private int daemonMaxRuns;
+  private boolean ergonomicJvmOptions;
+  private ForkOutputListener outputListener;
+  private double maxKoPercentage = Double.NaN;
+  private long minRequestCount;
+  private String outputPrefix;
+
   public Fork(
       String mainClassName,
       List<String> classpath,
@@ -72,6 +105,18 @@ public final class Fork {
         null);
   }
 
+  /**
+   * @param mainClassName the main class to run
+   * @param classpath the classpath of the main class
+   * @param jvmArgs the options of the forked JVM
+   * @param args the arguments of the main
+   * @param javaExecutable the java executable of the forked JVM, or null to run the main in the
+   *     current JVM instead, in an isolated class loader
+   * @param propagateSystemProperties whether or not to propagate the system properties of the
+   *     current JVM
+   * @param log the logger
+   * @param workingDirectory the working directory of the forked JVM, null for the current one
+   */
   public Fork(
       String mainClassName,
       List<String> classpath,
@@ -92,6 +137,90 @@ public final class Fork {
     this.workingDirectory = workingDirectory;
   }
 
+  /**
+   * Share the class data of the forked JVM across runs with the same classpath, to speed up its
+   * startup. Only effective from Java 13, like the default JVM options it's based on the version of
+   * the current JVM, and ignored if the JVM arguments already configure class data sharing.
+   *
+   * @param classDataSharing whether or not to use a class data sharing archive
+   * @return this fork
+   */
+  public Fork withClassDataSharing(boolean classDataSharing) {
+    this.classDataSharing = classDataSharing;
+    return this;
+  }
+
+  /**
+   * Run the main in a long-lived worker JVM, reused across runs and plugin invocations with the
+   * same JVM settings, which saves the JVM startup and warm-up. Each run gets a fresh class loader.
+   * The worker is replaced when the classpath changes, and exits after the given number of runs or
+   * after 30 minutes without runs. Falls back to a regular fork when the worker is busy with
+   * another run.
+   *
+   * <p>Not available from Java 24, and doesn't apply class data sharing.
+   *
+   * @param maxRuns number of runs after which the worker JVM exits, 0 to disable
+   * @return this fork
+   */
+  public Fork withDaemon(int maxRuns) {
+    this.daemonMaxRuns = maxRuns;
+    return this;
+  }
+
+  /**
+   * Add JVM options sized after the resources of the host, see {@link JvmErgonomics}, unless the
+   * JVM arguments already configure them. Use with {@link
+   * io.gatling.plugin.GatlingConstants#DEFAULT_JVM_OPTIONS_BASE}, as the Gatling defaults set the
+   * heap size.
+   *
+   * @param ergonomicJvmOptions whether or not to add ergonomic JVM options
+   * @return this fork
+   */
+  public Fork withErgonomicJvmOptions(boolean ergonomicJvmOptions) {
+    this.ergonomicJvmOptions = ergonomicJvmOptions;
+    return this;
+  }
+
+  /**
+   * Read the output of the forked JVM instead of inheriting the standard streams: lines are
+   * forwarded to the logger and to the given listener, along with the statistics parsed from the
+   * Gatling console output. Not applied to runs in a worker JVM, see {@link #withDaemon(int)}.
+   *
+   * @param outputListener listener of the output
+   * @return this fork
+   */
+  public Fork withOutputListener(ForkOutputListener outputListener) {
+    this.outputListener = outputListener;
+    return this;
+  }
+
+  /**
+   * Abort the run as soon as a Gatling progress summary reports too many KO requests. The run then
+   * fails with a {@link ForkException}. Reads the output like {@link
+   * #withOutputListener(ForkOutputListener)}.
+   *
+   * @param maxKoPercentage percentage of KO requests, between 0 and 100, above which to abort
+   * @param minRequestCount number of requests before the threshold applies
+   * @return this fork
+   */
+  public Fork withKoPercentageThreshold(double maxKoPercentage, long minRequestCount) {
+    this.maxKoPercentage = maxKoPercentage;
+    this.minRequestCount = minRequestCount;
+    return this;
+  }
+
+  /**
+   * Prefix each line of output of the forked JVM, e.g. to tell concurrent runs apart. Reads the
+   * output like {@link #withOutputListener(ForkOutputListener)}.
+   *
+   * @param outputPrefix prefix of the output lines
+   * @return this fork
+   */
+  public Fork withOutputPrefix(String outputPrefix) {
+    this.outputPrefix = outputPrefix;
+    return this;
+  }
+
   public static String toWindowsShortName(String value) {
     if (Os.IS_WINDOWS) {
       int programFilesIndex = value.indexOf("Program Files");
@@ -120,139 +249,208 @@ public final class Fork {
     return value;
   }
 
-  private String safe(String value) {
-    return value.contains(" ") ? '"' + value + '"' : value;
+  public void run() throws Exception {
+    run(outputPrefix);
   }
 
   /**
-   * Escapes any values it finds into their String form.
-   *
-   * <p>So a tab becomes the characters <code>'\\'</code> and <code>'t'</code>.
-   *
-   * @param str String to escape values in
-   * @return String with escaped values
-   * @throws NullPointerException if str is <code>null</code>
+   * Same as {@link #run()}, with the given output prefix instead of the one of this fork, see
+   * {@link ForkScheduler}.
    */
-  // forked from plexus-util
-  private static String escape(String str) {
-    // improved with code from cybertiger@cyberiantiger.org
-    // unicode from him, and default for < 32's.
-    StringBuilder buffer = new StringBuilder(2 * str.length());
-    for (char ch : str.toCharArray()) {
-      // handle unicode
-      if (ch > 0xfff) {
-        buffer.append("\\u" + Integer.toHexString(ch));
-      } else if (ch > 0xff) {
-        buffer.append("\\u0" + Integer.toHexString(ch));
-      } else if (ch > 0x7f) {
-        buffer.append("\\u00" + Integer.toHexString(ch));
-      } else if (ch < 32) {
-        switch (ch) {
-          case '\b':
-            buffer.append('\\').append('b');
-            break;
-          case '\n':
-            buffer.append('\\').append('n');
-            break;
-          case '\t':
-            buffer.append('\\').append('t');
-            break;
-          case '\f':
-            buffer.append('\\').append('f');
-            break;
-          case '\r':
-            buffer.append('\\').append('r');
-            break;
-          default:
-            if (ch > 0xf) {
-              buffer.append("\\u00" + Integer.toHexString(ch));
-            } else {
-              buffer.append("\\u000" + Integer.toHexString(ch));
-            }
-            break;
-        }
-      } else {
-        switch (ch) {
-          case '\'':
-            buffer.append('\\').append('\'');
-            break;
-          case '"':
-            buffer.append('\\').append('"');
-            break;
-          case '\\':
-            buffer.append('\\').append('\\');
-            break;
-          default:
-            buffer.append(ch);
-            break;
-        }
+  void run(String outputPrefix) throws Exception {
+    if (javaExecutable == null) {
+      if (IsolatedMain.canTrapExit()) {
+        runInProcess(new Properties());
+        return;
       }
+      log.info("System.exit calls can't be trapped in the current JVM, forking a new JVM");
+      javaExecutable = new File(System.getProperty("java.home"), "bin/java");
     }
-    return buffer.toString();
-  }
 
-  public void run() throws Exception {
-    if (propagateSystemProperties) {
-      for (Entry<Object, Object> systemProp : System.getProperties().entrySet()) {
-        String name = systemProp.getKey().toString();
-        String value = toWindowsShortName(systemProp.getValue().toString());
-        if (isPropagatableProperty(name)) {
-          if (name.contains(" ")) {
-            log.error(
-                "System property name '"
-                    + name
-                    + "' contains a whitespace and can't be propagated");
-
-          } else if (Os.IS_WINDOWS && value.contains(" ")) {
-            log.error(
-                "System property value '"
-                    + value
-                    + "' contains a whitespace and can't be propagated on Windows");
-
-          } else {
-            this.jvmArgs.add("-D" + name + "=" + safe(escape(value)));
+    if (ergonomicJvmOptions) {
+      this.jvmArgs.addAll(0, JvmErgonomics.jvmOptions(javaExecutable, jvmArgs));
+    }
+
+    final Properties systemProperties =
+        propagateSystemProperties ? propagatableSystemProperties() : new Properties();
+
+    if (daemonMaxRuns > 0) {
+      if (ForkDaemon.isSupported()) {
+        final Integer exitValue =
+            new ForkDaemon(javaExecutable, jvmArgs, classpath, workingDirectory, daemonMaxRuns, log)
+                .run(mainClassName, args, systemProperties);
+        if (exitValue != null) {
+          if (exitValue != 0) {
+            throw new ForkException(exitValue);
           }
+          return;
         }
+        log.info("Gatling worker JVM is busy, forking a new JVM");
+      } else {
+        log.info(
+            "Gatling worker JVMs aren't supported after Java "
+                + ForkDaemon.MAX_JAVA_VERSION
+                + ", forking a new JVM");
       }
     }
 
+    final ClassDataSharing cds =
+        classDataSharing
+            ? ClassDataSharing.forRun(javaExecutable, mainClassName, classpath, jvmArgs, log)
+            : null;
+    if (cds != null) {
+      this.jvmArgs.addAll(cds.jvmOptions());
+    }
+
     this.jvmArgs.add("-jar");
 
-    this.jvmArgs.add(
-        createBooterJar(classpath, MainWithArgsInFile.class.getName()).getCanonicalPath());
+    this.jvmArgs.add(booterJar(classpath, MainWithArgsInFile.class.getName()).getCanonicalPath());
 
-    Process process =
-        new ProcessBuilder(buildCommand()).directory(workingDirectory).inheritIO().start();
+    final boolean pipeline =
+        outputListener != null || !Double.isNaN(maxKoPercentage) || outputPrefix != null;
+    final ProcessBuilder processBuilder =
+        new ProcessBuilder(buildCommand(systemProperties)).directory(workingDirectory);
+    if (!pipeline) {
+      processBuilder.inheritIO();
+    }
+    Process process = processBuilder.start();
     process.getOutputStream().close();
-    int exitValue = process.waitFor();
+    final ForkOutputPipeline outputPipeline =
+        pipeline
+            ? new ForkOutputPipeline(
+                process,
+                log,
+                outputListener != null ? outputListener : new ForkOutputListener() {},
+                outputPrefix != null ? outputPrefix : "",
+                maxKoPercentage,
+                minRequestCount)
+            : null;
+    if (outputPipeline != null) {
+      outputPipeline.start();
+    }
+    int exitValue;
+    try {
+      exitValue = outputPipeline != null ? outputPipeline.waitFor() : process.waitFor();
+    } catch (InterruptedException e) {
+      // don't leave the forked JVM behind, e.g. when a scheduler is cancelled
+      process.destroy();
+      throw e;
+    }
+    final String abortReason = outputPipeline != null ? outputPipeline.abortReason() : null;
+    if (cds != null) {
+      cds.afterRun(exitValue == 0 && abortReason == null);
+    }
+    if (abortReason != null) {
+      throw new ForkException(exitValue, abortReason);
+    }
     if (exitValue != 0) {
       throw new ForkException(exitValue);
     }
   }
 
-  private List<String> buildCommand() throws IOException {
-    ArrayList<String> command = new ArrayList<>(jvmArgs.size() + 3);
+  /**
+   * Run the main in the current JVM, which saves the JVM startup, in an isolated class loader
+   * closed after the run. System properties, standard streams and the context class loader are
+   * restored after the run, and calls to System.exit are trapped with a security manager, which
+   * from Java 18 requires the current JVM to run with {@code -Djava.security.manager=allow}.
+   *
+   * <p>Only the {@code -D} options of the JVM arguments apply, and the working directory doesn't.
+   * Output options don't apply either: the main writes to the standard streams of the current JVM.
+   */
+  private void runInProcess(Properties systemProperties) throws Exception {
+    for (String jvmArg : jvmArgs) {
+      if (jvmArg.startsWith("-D")) {
+        final int separator = jvmArg.indexOf('=');
+        if (separator < 0) {
+          systemProperties.setProperty(jvmArg.substring(2), "");
+        } else {
+          systemProperties.setProperty(
+              jvmArg.substring(2, separator), jvmArg.substring(separator + 1));
+        }
+      }
+    }
+
+    final URL[] urls = new URL[classpath.size()];
+    for (int i = 0; i < urls.length; i++) {
+      urls[i] = getURL(new File(classpath.get(i)));
+    }
+    final String booterJar =
+        booterJar(classpath, MainWithArgsInFile.class.getName()).getCanonicalPath();
+
+    final int exitValue =
+        IsolatedMain.run(urls, booterJar, mainClassName, args, systemProperties, null, null);
+    if (exitValue != 0) {
+      throw new ForkException(exitValue);
+    }
+  }
+
+  private List<String> buildCommand(Properties systemProperties) throws IOException {
+    ArrayList<String> command = new ArrayList<>(jvmArgs.size() + 4);
     command.add(toWindowsShortName(javaExecutable.getCanonicalPath()));
     command.addAll(jvmArgs);
     command.add(mainClassName);
     command.add(createArgFile(args).getCanonicalPath());
+    if (!systemProperties.isEmpty()) {
+      command.add(createPropertiesFile(systemProperties).getCanonicalPath());
+    }
     return command;
   }
 
   /**
-   * Create a jar with just a manifest containing a Main-Class entry for BooterConfiguration and a
+   * Get a jar with just a manifest containing a Main-Class entry for BooterConfiguration and a
    * Class-Path entry for all classpath elements.
    *
+   * <p>Booter jars are cached by content, so that repeated launches with the same classpath reuse
+   * the same jar instead of writing a new one.
+   *
    * @param classPath List of all classpath elements.
    * @param startClassName The classname to start (main-class)
    * @return The file pointing to the jar
    * @throws java.io.IOException When a file operation fails.
    */
-  private static File createBooterJar(List<String> classPath, String startClassName)
-      throws IOException {
-    File file = File.createTempFile("gatlingbooter", ".jar");
-    file.deleteOnExit();
+  static File booterJar(List<String> classPath, String startClassName) throws IOException {
+    final List<String> keyComponents = new ArrayList<>(classPath.size() + 1);
+    keyComponents.add(startClassName);
+    for (String el : classPath) {
+      // directory entries are written with a trailing '/', see getURL
+      keyComponents.add(new File(el).isDirectory() ? el + File.separator : el);
+    }
+
+    final File cacheDirectory;
+    try {
+      cacheDirectory = CacheDirectory.resolve(BOOTER_CACHE_NAME);
+    } catch (IOException e) {
+      // not a reason to fail the run, fallback to a temporary file
+      final File file = File.createTempFile(BOOTER_FILE_PREFIX, BOOTER_FILE_SUFFIX);
+      file.deleteOnExit();
+      writeBooterJar(file, classPath, startClassName);
+      return file;
+    }
+
+    final File cached =
+        new File(
+            cacheDirectory,
+            BOOTER_FILE_PREFIX + CacheDirectory.keyOf(keyComponents) + BOOTER_FILE_SUFFIX);
+    if (!cached.isFile()) {
+      final File tempFile =
+          File.createTempFile(BOOTER_FILE_PREFIX, BOOTER_FILE_SUFFIX + ".tmp", cacheDirectory);
+      try {
+        writeBooterJar(tempFile, classPath, startClassName);
+        CacheDirectory.publish(tempFile.toPath(), cached.toPath());
+      } catch (IOException e) {
+        // a concurrent launch may have published the same jar, and be using it
+        if (!cached.isFile()) {
+          throw e;
+        }
+      } finally {
+        tempFile.delete();
+      }
+    }
+    return cached;
+  }
 
+  private static void writeBooterJar(File file, List<String> classPath, String startClassName)
+      throws IOException {
     try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file))) {
       jos.setLevel(JarOutputStream.STORED);
       JarEntry je = new JarEntry("META-INF/MANIFEST.MF");
@@ -276,8 +474,6 @@ public final class Fork {
 
       manifest.write(jos);
     }
-
-    return file;
   }
 
   // encode any characters that do not comply with RFC 2396
@@ -287,24 +483,26 @@ public final class Fork {
     return new URL(file.toURI().toASCIIString());
   }
 
-  private boolean isPropagatableProperty(String name) {
-    return !name.startsWith("java.")
-        && !name.startsWith("sun.")
-        && !name.startsWith("maven.")
-        && !name.startsWith("file.")
-        && !name.startsWith("awt.")
-        && !name.startsWith("os.")
-        && !name.startsWith("user.")
-        && !name.startsWith("idea.")
-        && !name.startsWith("guice.")
-        && !name.startsWith("hudson.")
-        && !name.equals("line.separator")
-        && !name.equals("path.separator")
-        && !name.equals("classworlds.conf")
-        && !name.equals("org.slf4j.simpleLogger.defaultLogLevel");
+  private static Properties propagatableSystemProperties() {
+    final Properties properties = new Properties();
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (isPropagatableProperty(name)) {
+        properties.setProperty(name, System.getProperty(name));
+      }
+    }
+    return properties;
   }
 
-  private File createArgFile(List<String> args) throws IOException {
+  static boolean isPropagatableProperty(String name) {
+    if (NON_PROPAGATABLE_PROPERTIES.contains(name)) {
+      return false;
+    }
+    final int firstDot = name.indexOf('.');
+    return firstDot < 0
+        || !NON_PROPAGATABLE_PROPERTY_PREFIXES.contains(name.substring(0, firstDot));
+  }
+
+  static File createArgFile(List<String> args) throws IOException {
     final File argFile = File.createTempFile(ARG_FILE_PREFIX, ARG_FILE_SUFFIX);
     argFile.deleteOnExit();
     try (PrintWriter out = new PrintWriter(argFile)) {
@@ -314,4 +512,13 @@ public final class Fork {
       return argFile;
     }
   }
+
+  private static File createPropertiesFile(Properties properties) throws IOException {
+    final File propertiesFile = File.createTempFile(ARG_FILE_PREFIX, PROPERTIES_FILE_SUFFIX);
+    propertiesFile.deleteOnExit();
+    try (OutputStream out = new FileOutputStream(propertiesFile)) {
+      properties.store(out, null);
+      return propertiesFile;
+    }
+  }
 }
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import io.gatling.plugin.GatlingConstants;
+import io.gatling.plugin.io.PluginLogger;
+import java.io.*;
+import java.net.*;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of the {@link ForkWorker} JVMs: finds the worker matching the JVM settings of a fork, or
+ * launches it, and runs the fork's main in it.
+ *
+ * <p>Workers are registered in the plugin cache directory, so that they are reused across plugin
+ * invocations. A worker is replaced when the classpath changes, including when a jar of the
+ * classpath is modified.
+ */
+final class ForkDaemon {
+
+  /** The {@link ForkWorker} relies on a security manager, which can't be enabled from Java 24. */
+  static final int MAX_JAVA_VERSION = 23;
+
+  private static final String WORKERS_CACHE_NAME = "workers";
+  private static final String REGISTRY_FILE_SUFFIX = ".worker";
+  private static final String LOG_FILE_SUFFIX = ".log";
+  private static final long STARTUP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  static final int HANDSHAKE_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(5);
+  private static final int IDLE_TIMEOUT_MILLIS = (int) TimeUnit.MINUTES.toMillis(30);
+
+  private final File javaExecutable;
+  private final List<String> jvmArgs;
+  private final List<String> classpath;
+  private final File workingDirectory;
+  private final int maxRuns;
+  private final PluginLogger log;
+
+  ForkDaemon(
+      File javaExecutable,
+      List<String> jvmArgs,
+      List<String> classpath,
+      File workingDirectory,
+      int maxRuns,
+      PluginLogger log) {
+    this.javaExecutable = javaExecutable;
+    this.jvmArgs = jvmArgs;
+    this.classpath = classpath;
+    this.workingDirectory = workingDirectory;
+    this.maxRuns = maxRuns;
+    this.log = log;
+  }
+
+  static boolean isSupported() {
+    return GatlingConstants.JAVA_MAJOR_VERSION <= MAX_JAVA_VERSION;
+  }
+
+  /** @return the exit value of the main, or null if the matching worker is busy with another run */
+  Integer run(String mainClassName, List<String> args, Properties systemProperties)
+      throws IOException, InterruptedException {
+    final List<String> slotComponents = new ArrayList<>(jvmArgs.size() + 2);
+    slotComponents.add(javaExecutable.getCanonicalPath());
+    slotComponents.add(workingDirectory != null ? workingDirectory.getCanonicalPath() : "");
+    slotComponents.addAll(jvmArgs);
+    final String slotKey = CacheDirectory.keyOf(slotComponents);
+
+    final List<String> classpathComponents = new ArrayList<>(classpath.size());
+    for (String el : classpath) {
+      // directories are read again by each run, unlike jars which may be kept open
+      final File file = new File(el);
+      classpathComponents.add(
+          file.isDirectory() ? el : el + ':' + file.length() + ':' + file.lastModified());
+    }
+    final String classpathKey = CacheDirectory.keyOf(classpathComponents);
+
+    final File directory = CacheDirectory.resolvePrivate(WORKERS_CACHE_NAME);
+    final File registryFile = new File(directory, slotKey + REGISTRY_FILE_SUFFIX);
+    final File logFile = new File(directory, slotKey + LOG_FILE_SUFFIX);
+
+    Worker worker = Worker.read(registryFile);
+    if (worker != null && !worker.classpathKey.equals(classpathKey)) {
+      log.info("Classpath changed, replacing the Gatling worker JVM");
+      worker.stop();
+      worker = null;
+    }
+    if (worker != null) {
+      try {
+        return worker.run(mainClassName, args, systemProperties, logFile);
+      } catch (WorkerBusyException e) {
+        return null;
+      } catch (WorkerUnavailableException e) {
+        // stale registration, e.g. the worker exited after its last run
+      }
+    }
+
+    worker = startWorker(directory, registryFile, logFile, classpathKey);
+    try {
+      return worker.run(mainClassName, args, systemProperties, logFile);
+    } catch (WorkerUnavailableException e) {
+      throw new IOException("Failed to connect to the Gatling worker JVM, see " + logFile, e);
+    }
+  }
+
+  private Worker startWorker(File directory, File registryFile, File logFile, String classpathKey)
+      throws IOException, InterruptedException {
+    log.info("Starting a Gatling worker JVM, reused by the next runs");
+    final byte[] tokenBytes = new byte[16];
+    new SecureRandom().nextBytes(tokenBytes);
+    final StringBuilder token = new StringBuilder();
+    for (byte b : tokenBytes) {
+      token.append(String.format("%02x", b));
+    }
+
+    final File startupFile = File.createTempFile("worker-", ".startup", directory);
+    startupFile.delete();
+
+    // see ForkWorker#main
+    final List<String> workerArgs = new ArrayList<>(classpath.size() + 7);
+    workerArgs.add(Integer.toString(IDLE_TIMEOUT_MILLIS));
+    workerArgs.add(startupFile.getCanonicalPath());
+    workerArgs.add(registryFile.getCanonicalPath());
+    workerArgs.add(token.toString());
+    workerArgs.add(classpathKey);
+    workerArgs.add(Integer.toString(maxRuns));
+    workerArgs.add(
+        Fork.booterJar(classpath, MainWithArgsInFile.class.getName()).getCanonicalPath());
+    workerArgs.addAll(classpath);
+
+    final List<String> command = new ArrayList<>(jvmArgs.size() + 7);
+    command.add(Fork.toWindowsShortName(javaExecutable.getCanonicalPath()));
+    command.addAll(jvmArgs);
+    if (GatlingConstants.JAVA_MAJOR_VERSION >= 18) {
+      command.add("-Djava.security.manager=allow");
+    }
+    command.add("-cp");
+    command.add(commonsClasspath());
+    command.add(MainWithArgsInFile.class.getName());
+    command.add(ForkWorker.class.getName());
+    command.add(Fork.createArgFile(workerArgs).getCanonicalPath());
+
+    final Process process =
+        new ProcessBuilder(command)
+            .directory(workingDirectory)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+            .start();
+    process.getOutputStream().close();
+
+    try {
+      final long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+      while (System.currentTimeMillis() < deadline) {
+        final Worker worker = Worker.read(startupFile);
+        if (worker != null) {
+          return worker;
+        }
+        if (process.waitFor(50, TimeUnit.MILLISECONDS)) {
+          throw new IOException(
+              "Gatling worker JVM exited with code "
+                  + process.exitValue()
+                  + " on startup, see "
+                  + logFile);
+        }
+      }
+      process.destroy();
+      throw new IOException("Gatling worker JVM failed to start in time, see " + logFile);
+    } finally {
+      startupFile.delete();
+    }
+  }
+
+  private static String commonsClasspath() throws IOException {
+    try {
+      return new File(ForkWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+          .getCanonicalPath();
+    } catch (URISyntaxException e) {
+      throw new IOException("Failed to locate the plugin classes", e);
+    }
+  }
+
+  private static final class WorkerBusyException extends IOException {
+    private WorkerBusyException() {
+      super("Gatling worker JVM is busy");
+    }
+  }
+
+  private static final class WorkerUnavailableException extends IOException {
+    private WorkerUnavailableException(Throwable cause) {
+      super("Gatling worker JVM is not running", cause);
+    }
+  }
+
+  private static final class Worker {
+    private final int port;
+    private final String token;
+    private final String classpathKey;
+
+    private Worker(int port, String token, String classpathKey) {
+      this.port = port;
+      this.token = token;
+      this.classpathKey = classpathKey;
+    }
+
+    /**
+     * @return the worker registered in the given file, or null if there's none, or if the file may
+     *     have been written by another user
+     */
+    private static Worker read(File file) {
+      try {
+        if (!CacheDirectory.isOwnerOnly(file.toPath())) {
+          return null;
+        }
+        final List<String> lines = Files.readAllLines(file.toPath());
+        return lines.size() == 3
+            ? new Worker(Integer.parseInt(lines.get(0)), lines.get(1), lines.get(2))
+            : null;
+      } catch (IOException | NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private Socket connect() throws WorkerUnavailableException {
+      final Socket socket = new Socket();
+      try {
+        socket.connect(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+            HANDSHAKE_TIMEOUT_MILLIS);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        return socket;
+      } catch (IOException e) {
+        try {
+          socket.close();
+        } catch (IOException ignored) {
+          // nothing to do
+        }
+        throw new WorkerUnavailableException(e);
+      }
+    }
+
+    private void stop() {
+      try (Socket socket = connect()) {
+        final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeUTF(token);
+        out.writeUTF(ForkWorker.STOP);
+        out.flush();
+      } catch (IOException e) {
+        // already stopped, or busy and will exit after its idle timeout
+      }
+    }
+
+    private int run(
+        String mainClassName, List<String> args, Properties systemProperties, File logFile)
+        throws IOException {
+      try (Socket socket = connect()) {
+        final DataInputStream in =
+            new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        try {
+          out.writeUTF(token);
+          out.writeUTF(ForkWorker.RUN);
+          ForkWorker.writeString(out, mainClassName);
+          out.writeInt(args.size());
+          for (String arg : args) {
+            ForkWorker.writeString(out, arg);
+          }
+          final Set<String> propertyNames = systemProperties.stringPropertyNames();
+          out.writeInt(propertyNames.size());
+          for (String name : propertyNames) {
+            ForkWorker.writeString(out, name);
+            ForkWorker.writeString(out, systemProperties.getProperty(name));
+          }
+          out.flush();
+          if (in.readByte() != ForkWorker.ACCEPTED) {
+            throw new WorkerUnavailableException(null);
+          }
+          out.writeByte(ForkWorker.GO);
+          out.flush();
+        } catch (SocketTimeoutException e) {
+          // the worker only accepts a new connection once its current run is done
+          throw new WorkerBusyException();
+        } catch (IOException e) {
+          throw new WorkerUnavailableException(e);
+        }
+
+        socket.setSoTimeout(0);
+        byte[] buffer = new byte[8192];
+        try {
+          while (true) {
+            final byte type = in.readByte();
+            if (type == ForkWorker.EXIT) {
+              return in.readInt();
+            }
+            final int length = in.readInt();
+            if (length > buffer.length) {
+              buffer = new byte[length];
+            }
+            in.readFully(buffer, 0, length);
+            (type == ForkWorker.STDERR ? System.err : System.out).write(buffer, 0, length);
+          }
+        } catch (EOFException e) {
+          throw new IOException("Gatling worker JVM exited during the run, see " + logFile, e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+/**
+ * Receives the output of a forked JVM, see {@link Fork#withOutputListener(ForkOutputListener)}.
+ * Methods are called from the threads reading the output, one per stream.
+ */
+public interface ForkOutputListener {
+
+  /**
+   * @param line a line printed by the forked JVM, without its line terminator
+   * @param error whether the line was printed on the error output
+   */
+  default void onLine(String line, boolean error) {}
+
+  /** @param statistics statistics parsed from the Gatling console output */
+  default void onStatistics(GatlingRunStatistics statistics) {}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import io.gatling.plugin.io.PluginLogger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * Reads the output of a forked JVM on dedicated threads, forwards it line by line to the {@link
+ * PluginLogger} and to a {@link ForkOutputListener}, and parses the Gatling console statistics.
+ * Destroys the process when the KO percentage of a progress summary exceeds the threshold.
+ */
+final class ForkOutputPipeline {
+
+  // longer lines are split, so that a runaway output can't exhaust the memory
+  static final int MAX_LINE_LENGTH = 16 * 1024;
+
+  private final Process process;
+  private final PluginLogger log;
+  private final ForkOutputListener listener;
+  private final double maxKoPercentage;
+  private final long minRequestCount;
+  private final Thread stdoutReader;
+  private final Thread stderrReader;
+
+  private volatile String abortReason;
+
+  /**
+   * @param outputPrefix prefix of the lines forwarded to the logger
+   * @param maxKoPercentage threshold above which the run is aborted, {@code NaN} for none
+   * @param minRequestCount number of requests before the threshold applies
+   */
+  ForkOutputPipeline(
+      Process process,
+      PluginLogger log,
+      ForkOutputListener listener,
+      String outputPrefix,
+      double maxKoPercentage,
+      long minRequestCount) {
+    this.process = process;
+    this.log = log;
+    this.listener = listener;
+    this.maxKoPercentage = maxKoPercentage;
+    this.minRequestCount = minRequestCount;
+
+    final GatlingConsoleParser parser = new GatlingConsoleParser(this::onStatistics);
+    this.stdoutReader =
+        reader(
+            "gatling-fork-stdout",
+            process.getInputStream(),
+            line -> {
+              log.info(outputPrefix + line);
+              listener.onLine(line, false);
+              parser.onLine(line);
+            });
+    this.stderrReader =
+        reader(
+            "gatling-fork-stderr",
+            process.getErrorStream(),
+            line -> {
+              log.error(outputPrefix + line);
+              listener.onLine(line, true);
+            });
+  }
+
+  void start() {
+    stdoutReader.start();
+    stderrReader.start();
+  }
+
+  /** @return the exit value of the process, once its output has been fully read */
+  int waitFor() throws InterruptedException {
+    final int exitValue = process.waitFor();
+    stdoutReader.join();
+    stderrReader.join();
+    return exitValue;
+  }
+
+  /** @return why the run was aborted, or null if it wasn't */
+  String abortReason() {
+    return abortReason;
+  }
+
+  private void onStatistics(GatlingRunStatistics statistics) {
+    listener.onStatistics(statistics);
+    if (!statistics.finalStatistics
+        && abortReason == null
+        && statistics.requestCount() >= minRequestCount
+        && statistics.koPercentage() > maxKoPercentage) {
+      abortReason =
+          String.format(
+              "Run aborted after %ss: %.2f%% of KO requests exceeds the %.2f%% threshold",
+              statistics.elapsedSeconds, statistics.koPercentage(), maxKoPercentage);
+      log.error(abortReason);
+      process.destroy();
+    }
+  }
+
+  private Thread reader(String name, InputStream is, Consumer<String> handler) {
+    final Thread thread =
+        new Thread(
+            () -> {
+              try (Reader reader = new InputStreamReader(is, Charset.defaultCharset())) {
+                readLines(reader, handler);
+              } catch (IOException e) {
+                // the process was destroyed
+              } catch (RuntimeException e) {
+                log.error("Failed to process the output of the forked JVM: " + e.getMessage());
+              }
+            },
+            name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  static void readLines(Reader reader, Consumer<String> handler) throws IOException {
+    final char[] buffer = new char[8192];
+    final StringBuilder line = new StringBuilder();
+    boolean previousWasCarriageReturn = false;
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        final char c = buffer[i];
+        if (c == '\n' && previousWasCarriageReturn) {
+          // second half of a \r\n line terminator
+        } else if (c == '\n' || c == '\r') {
+          handler.accept(line.toString());
+          line.setLength(0);
+        } else {
+          line.append(c);
+          if (line.length() == MAX_LINE_LENGTH) {
+            handler.accept(line.toString());
+            line.setLength(0);
+          }
+        }
+        previousWasCarriageReturn = c == '\r';
+      }
+    }
+    if (line.length() > 0) {
+      handler.accept(line.toString());
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several {@link Fork}s, e.g. one per simulation, with at most a given number of forked JVMs
+ * at the same time. The output of each run is prefixed with its name. Booter jars are cached by
+ * classpath, so runs sharing a classpath share the same booter jar.
+ *
+ * <p>Mind the heap size of each fork when running them concurrently: the ergonomic JVM options size
+ * a single JVM after the whole host.
+ */
+public final class ForkScheduler {
+
+  public static final class Run {
+    public final String name;
+    /** Exit value of the forked JVM, -1 if it failed to run */
+    public final int exitValue;
+    /** Why the fork failed, null if it was successful */
+    public final Exception failure;
+
+    public final long durationMillis;
+
+    private Run(String name, int exitValue, Exception failure, long durationMillis) {
+      this.name = name;
+      this.exitValue = exitValue;
+      this.failure = failure;
+      this.durationMillis = durationMillis;
+    }
+
+    public boolean successful() {
+      return failure == null;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Run{name='%s',exitValue='%s',failure='%s',durationMillis='%s'}",
+          name, exitValue, failure, durationMillis);
+    }
+  }
+
+  public static final class Result {
+    /** The runs, in the order they were added */
+    public final List<Run> runs;
+
+    private Result(List<Run> runs) {
+      this.runs = Collections.unmodifiableList(runs);
+    }
+
+    public boolean successful() {
+      return runs.stream().allMatch(Run::successful);
+    }
+
+    /** @return the exit value of the first failed run, 0 if all of them were successful */
+    public int exitValue() {
+      for (Run run : runs) {
+        if (!run.successful()) {
+          return run.exitValue != 0 ? run.exitValue : -1;
+        }
+      }
+      return 0;
+    }
+
+    /** @throws Fork.ForkException listing the failed runs, if any */
+    public void throwIfFailed() throws Fork.ForkException {
+      if (!successful()) {
+        final StringBuilder message = new StringBuilder("Failed runs:");
+        for (Run run : runs) {
+          if (!run.successful()) {
+            message.append(' ').append(run.name).append(" (exit value ").append(run.exitValue);
+            if (run.failure.getMessage() != null) {
+              message.append(", ").append(run.failure.getMessage());
+            }
+            message.append(')');
+          }
+        }
+        throw new Fork.ForkException(exitValue(), message.toString());
+      }
+    }
+  }
+
+  private final int maxConcurrency;
+  private final ExecutorProvider executorProvider;
+  private final List<String> names = new ArrayList<>();
+  private final List<Fork> forks = new ArrayList<>();
+
+  /** @param maxConcurrency maximum number of forked JVMs running at the same time */
+  public ForkScheduler(int maxConcurrency) {
+    this(maxConcurrency, ExecutorProvider.platformThreads());
+  }
+
+  /**
+   * @param maxConcurrency maximum number of forked JVMs running at the same time
+   * @param executorProvider provides the threads waiting for the forked JVMs
+   */
+  public ForkScheduler(int maxConcurrency, ExecutorProvider executorProvider) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive, got " + maxConcurrency);
+    }
+    this.maxConcurrency = maxConcurrency;
+    this.executorProvider = executorProvider;
+  }
+
+  /**
+   * @param memoryPerRunBytes memory needed by each forked JVM, heap and off-heap
+   * @return how many forked JVMs the CPUs and memory available to the forked JVMs can run at the
+   *     same time
+   */
+  public static int defaultConcurrency(long memoryPerRunBytes) {
+    final JvmErgonomics.Resources resources = JvmErgonomics.hostResources();
+    return (int) Math.max(1, Math.min(resources.cpus, resources.memoryBytes / memoryPerRunBytes));
+  }
+
+  /**
+   * @param name name of the run, e.g. the simulation class name, used as output prefix
+   * @param fork the fork, with its own working directory if runs write files, its output prefix is
+   *     ignored
+   * @return this scheduler
+   */
+  public ForkScheduler add(String name, Fork fork) {
+    names.add(name);
+    forks.add(fork);
+    return this;
+  }
+
+  /**
+   * Run all the forks, and wait for all of them to complete, even when some fail. When interrupted,
+   * the forked JVMs still running are destroyed.
+   *
+   * @return the result of each run
+   */
+  public Result runAll() throws InterruptedException {
+    final int threads = Math.min(maxConcurrency, Math.max(1, forks.size()));
+    final ExecutorService executor = executorProvider.newExecutor("gatling-fork", threads);
+    try {
+      final List<Future<Run>> futures = new ArrayList<>(forks.size());
+      for (int i = 0; i < forks.size(); i++) {
+        final String name = names.get(i);
+        final Fork fork = forks.get(i);
+        futures.add(executor.submit(() -> run(name, fork)));
+      }
+
+      final List<Run> runs = new ArrayList<>(futures.size());
+      for (Future<Run> future : futures) {
+        try {
+          runs.add(future.get());
+        } catch (ExecutionException e) {
+          // run only throws when interrupted by shutdownNow
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+      return new Result(runs);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Run run(String name, Fork fork) throws InterruptedException {
+    final long start = System.nanoTime();
+    try {
+      fork.run("[" + name + "] ");
+      return new Run(name, 0, null, (System.nanoTime() - start) / 1_000_000);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Fork.ForkException e) {
+      return new Run(name, e.exitValue, e, (System.nanoTime() - start) / 1_000_000);
+    } catch (Exception e) {
+      return new Run(name, -1, e, (System.nanoTime() - start) / 1_000_000);
+    }
+  }
+}
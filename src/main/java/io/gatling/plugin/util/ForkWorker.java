@@ -0,0 +1,237 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Long-lived JVM running forked mains on behalf of {@link ForkDaemon}, launched through {@link
+ * MainWithArgsInFile}.
+ *
+ * <p>The worker listens on a loopback port, published with a secret token in its registry file, and
+ * runs one main at a time, each in a fresh class loader. The output of the main is streamed back to
+ * the client, followed by its exit value: calls to {@link System#exit(int)} are trapped during
+ * runs. A run only starts once its client confirmed it is still waiting for it. The worker exits
+ * after a given number of runs, or when idle for too long.
+ */
+public final class ForkWorker {
+
+  // requests
+  static final String RUN = "RUN";
+  static final String STOP = "STOP";
+  static final byte GO = 'G';
+
+  // responses
+  static final byte ACCEPTED = 'A';
+  static final byte STDOUT = 'O';
+  static final byte STDERR = 'E';
+  static final byte EXIT = 'X';
+
+  private final File startupFile;
+  private final File registryFile;
+  private final String token;
+  private final String classpathKey;
+  private final int maxRuns;
+  private final URL[] classpath;
+  private final String booterJar;
+
+  private ForkWorker(List<String> config) throws IOException {
+    // see ForkDaemon#startWorker
+    this.startupFile = new File(config.get(0));
+    this.registryFile = new File(config.get(1));
+    this.token = config.get(2);
+    this.classpathKey = config.get(3);
+    this.maxRuns = Integer.parseInt(config.get(4));
+    this.booterJar = config.get(5);
+    final List<String> classpathElements = config.subList(6, config.size());
+    this.classpath = new URL[classpathElements.size()];
+    for (int i = 0; i < classpath.length; i++) {
+      classpath[i] = new File(classpathElements.get(i)).toURI().toURL();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    final List<String> config = new ArrayList<>(args.length);
+    for (String arg : args) {
+      config.add(arg);
+    }
+    final int idleTimeoutMillis = Integer.parseInt(config.remove(0));
+    new ForkWorker(config).serve(idleTimeoutMillis);
+  }
+
+  private void serve(int idleTimeoutMillis) throws IOException {
+    if (!IsolatedMain.canTrapExit()) {
+      System.err.println(
+          "Can't trap System.exit calls, the worker will exit with the first run calling it");
+    }
+
+    int runs = 0;
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout(idleTimeoutMillis);
+      publish(serverSocket.getLocalPort());
+
+      while (runs < maxRuns) {
+        final Socket accepted;
+        try {
+          accepted = serverSocket.accept();
+        } catch (SocketTimeoutException e) {
+          // idle for too long
+          break;
+        }
+        try (Socket socket = accepted) {
+          socket.setSoTimeout(ForkDaemon.HANDSHAKE_TIMEOUT_MILLIS);
+          final DataInputStream in =
+              new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+          final DataOutputStream out =
+              new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+          if (!MessageDigest.isEqual(
+              token.getBytes(StandardCharsets.UTF_8),
+              in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+            continue;
+          }
+          final String request = in.readUTF();
+          if (STOP.equals(request)) {
+            break;
+          } else if (RUN.equals(request)) {
+            final String mainClassName = readString(in);
+            final int argCount = in.readInt();
+            final List<String> args = new ArrayList<>(argCount);
+            for (int i = 0; i < argCount; i++) {
+              args.add(readString(in));
+            }
+            final int propertyCount = in.readInt();
+            final Properties systemProperties = new Properties();
+            for (int i = 0; i < propertyCount; i++) {
+              systemProperties.setProperty(readString(in), readString(in));
+            }
+            out.writeByte(ACCEPTED);
+            out.flush();
+            // a request queued while the previous run was going on may be stale: its client gives
+            // up when not accepted in time and forks the main itself, so wait for its go-ahead
+            if (in.readByte() != GO) {
+              continue;
+            }
+            socket.setSoTimeout(0);
+            runs++;
+            final int exitValue = run(mainClassName, args, systemProperties, out);
+            synchronized (out) {
+              out.writeByte(EXIT);
+              out.writeInt(exitValue);
+              out.flush();
+            }
+          }
+        } catch (IOException e) {
+          // client went away, or gave up before the run started, keep serving the next ones
+        }
+      }
+    } finally {
+      unpublish();
+    }
+    System.exit(0);
+  }
+
+  private int run(
+      String mainClassName, List<String> args, Properties systemProperties, DataOutputStream out) {
+    final PrintStream runOut = new PrintStream(new FrameOutputStream(out, STDOUT), true);
+    final PrintStream runErr = new PrintStream(new FrameOutputStream(out, STDERR), true);
+    return IsolatedMain.run(
+        classpath, booterJar, mainClassName, args, systemProperties, runOut, runErr);
+  }
+
+  // unlike writeUTF, not limited to 64KB
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(DataInputStream in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void publish(int port) throws IOException {
+    // the startup file is only read by the client which launched this worker, while the registry
+    // file is shared with the next clients, and may be replaced by a concurrently launched worker
+    for (File file : new File[] {registryFile, startupFile}) {
+      // they hold the token of the worker
+      final File tempFile =
+          CacheDirectory.createPrivateTempFile(file.getParentFile(), file.getName(), ".tmp");
+      try (PrintWriter writer = new PrintWriter(tempFile, StandardCharsets.UTF_8.name())) {
+        writer.println(port);
+        writer.println(token);
+        writer.println(classpathKey);
+      }
+      CacheDirectory.publish(tempFile.toPath(), file.toPath());
+    }
+  }
+
+  private void unpublish() {
+    // a newer worker may have replaced this one
+    try {
+      final List<String> registry = Files.readAllLines(registryFile.toPath());
+      if (registry.size() > 1 && token.equals(registry.get(1))) {
+        registryFile.delete();
+      }
+    } catch (IOException e) {
+      // already gone
+    }
+  }
+
+  /** Writes the output of a run as frames of the worker protocol. */
+  private static final class FrameOutputStream extends OutputStream {
+    private final DataOutputStream out;
+    private final byte type;
+
+    private FrameOutputStream(DataOutputStream out, byte type) {
+      this.out = out;
+      this.type = type;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return;
+      }
+      synchronized (out) {
+        out.writeByte(type);
+        out.writeInt(len);
+        out.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      synchronized (out) {
+        out.flush();
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental parser of the Gatling console output: the periodic progress summaries, and the global
+ * information printed at the end of the run. Not thread-safe, feed it from a single thread.
+ */
+final class GatlingConsoleParser {
+
+  private static final String SECTION_PREFIX = "---- ";
+  private static final String BLOCK_SEPARATOR = "=====";
+  private static final String REQUESTS_SECTION = "---- Requests";
+  private static final String GLOBAL_INFORMATION_SECTION = "---- Global Information";
+
+  private static final Pattern ELAPSED =
+      Pattern.compile("^\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\s+(\\d+)s elapsed$");
+  private static final Pattern GLOBAL_PROGRESS =
+      Pattern.compile("^> Global\\s+\\(OK=(\\d+)\\s+KO=(\\d+)\\s*\\)$");
+  private static final Pattern STATISTIC =
+      Pattern.compile("^> (.+?)\\s+(\\S+) \\(OK=(\\S+)\\s+KO=(\\S+)\\s*\\)$");
+  private static final Pattern PERCENTILE = Pattern.compile("^response time (\\S+) percentile$");
+
+  private enum Section {
+    NONE,
+    REQUESTS,
+    GLOBAL_INFORMATION
+  }
+
+  private final Consumer<GatlingRunStatistics> listener;
+
+  private Section section = Section.NONE;
+  private long elapsedSeconds = -1;
+  private long okCount;
+  private long koCount;
+  private final Map<String, Long> percentiles = new LinkedHashMap<>();
+
+  GatlingConsoleParser(Consumer<GatlingRunStatistics> listener) {
+    this.listener = listener;
+  }
+
+  void onLine(String line) {
+    final String trimmed = line.trim();
+    if (trimmed.startsWith(SECTION_PREFIX) || trimmed.startsWith(BLOCK_SEPARATOR)) {
+      endSection();
+      if (trimmed.startsWith(REQUESTS_SECTION)) {
+        section = Section.REQUESTS;
+      } else if (trimmed.startsWith(GLOBAL_INFORMATION_SECTION)) {
+        section = Section.GLOBAL_INFORMATION;
+        okCount = 0;
+        koCount = 0;
+        percentiles.clear();
+      }
+      return;
+    }
+
+    switch (section) {
+      case NONE:
+        final Matcher elapsed = ELAPSED.matcher(trimmed);
+        if (elapsed.matches()) {
+          elapsedSeconds = Long.parseLong(elapsed.group(1));
+        }
+        break;
+
+      case REQUESTS:
+        final Matcher progress = GLOBAL_PROGRESS.matcher(trimmed);
+        if (progress.matches()) {
+          listener.accept(
+              new GatlingRunStatistics(
+                  elapsedSeconds,
+                  Long.parseLong(progress.group(1)),
+                  Long.parseLong(progress.group(2)),
+                  Collections.emptyMap(),
+                  false));
+        }
+        break;
+
+      case GLOBAL_INFORMATION:
+        final Matcher statistic = STATISTIC.matcher(trimmed);
+        if (statistic.matches()) {
+          final String name = statistic.group(1);
+          if (name.equals("request count")) {
+            okCount = parseLong(statistic.group(3));
+            koCount = parseLong(statistic.group(4));
+          } else {
+            final Matcher percentile = PERCENTILE.matcher(name);
+            if (percentile.matches()) {
+              percentiles.put(percentile.group(1), parseLong(statistic.group(2)));
+            }
+          }
+        }
+        break;
+    }
+  }
+
+  private void endSection() {
+    if (section == Section.GLOBAL_INFORMATION) {
+      listener.accept(new GatlingRunStatistics(-1, okCount, koCount, percentiles, true));
+    }
+    section = Section.NONE;
+  }
+
+  // "-" when there's no value, e.g. no KO requests
+  private static long parseLong(String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Statistics parsed from the console output of a forked Gatling run */
+public final class GatlingRunStatistics {
+
+  /** Seconds elapsed since the start of the run, -1 for the final statistics */
+  public final long elapsedSeconds;
+
+  public final long okCount;
+  public final long koCount;
+
+  /**
+   * Global response time percentiles in milliseconds, indexed by label, e.g. {@code 95th}. Only
+   * available in the final statistics.
+   */
+  public final Map<String, Long> responseTimePercentiles;
+
+  /** Whether these are the final statistics, printed once the run is done */
+  public final boolean finalStatistics;
+
+  public GatlingRunStatistics(
+      long elapsedSeconds,
+      long okCount,
+      long koCount,
+      Map<String, Long> responseTimePercentiles,
+      boolean finalStatistics) {
+    this.elapsedSeconds = elapsedSeconds;
+    this.okCount = okCount;
+    this.koCount = koCount;
+    this.responseTimePercentiles =
+        Collections.unmodifiableMap(new LinkedHashMap<>(responseTimePercentiles));
+    this.finalStatistics = finalStatistics;
+  }
+
+  public long requestCount() {
+    return okCount + koCount;
+  }
+
+  /** @return the percentage of failed requests, between 0 and 100 */
+  public double koPercentage() {
+    final long requestCount = requestCount();
+    return requestCount == 0 ? 0 : koCount * 100.0 / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "GatlingRunStatistics{elapsedSeconds='%s',okCount='%s',koCount='%s',responseTimePercentiles='%s',finalStatistics='%s'}",
+        elapsedSeconds, okCount, koCount, responseTimePercentiles, finalStatistics);
+  }
+}
@@ -19,29 +19,108 @@ package io.gatling.plugin.util;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
+/** Stream utilities, reading and copying through the buffers of {@link BufferPool} */
 public class InputStreamUtils {
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   public static String inputStreamToString(InputStream inputStream, Charset charset)
       throws IOException {
-    return inputStreamToString(inputStream, charset.name());
+    final Content content = read(inputStream, -1);
+    try {
+      return new String(content.buffer, 0, content.length, charset);
+    } finally {
+      BufferPool.release(content.buffer);
+    }
   }
 
   public static String inputStreamToString(InputStream inputStream, String charset)
       throws IOException {
-    try (ByteArrayOutputStream result = inputStreamToByteArrayOutputStream(inputStream)) {
-      return result.toString(charset);
+    final Content content = read(inputStream, -1);
+    try {
+      return new String(content.buffer, 0, content.length, charset);
+    } finally {
+      BufferPool.release(content.buffer);
     }
   }
 
   public static ByteArrayOutputStream inputStreamToByteArrayOutputStream(InputStream inputStream)
       throws IOException {
     final ByteArrayOutputStream result = new ByteArrayOutputStream();
-    byte[] buffer = new byte[1024];
-    int length;
-    while ((length = inputStream.read(buffer)) != -1) {
-      result.write(buffer, 0, length);
-    }
+    copy(inputStream, result);
     return result;
   }
+
+  /**
+   * @param inputStream the stream to read until its end
+   * @param expectedLength the length of the content, e.g. from a Content-Length header, used to
+   *     size the buffer up to {@link BufferPool#MAX_POOLED_SIZE}, or -1 if unknown
+   * @return the content of the stream
+   */
+  public static byte[] readAllBytes(InputStream inputStream, long expectedLength)
+      throws IOException {
+    final Content content = read(inputStream, expectedLength);
+    try {
+      return Arrays.copyOf(content.buffer, content.length);
+    } finally {
+      BufferPool.release(content.buffer);
+    }
+  }
+
+  /** @return the number of bytes copied */
+  public static long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+    final byte[] buffer = BufferPool.acquire(COPY_BUFFER_SIZE);
+    try {
+      long copied = 0;
+      int length;
+      while ((length = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, length);
+        copied += length;
+      }
+      return copied;
+    } finally {
+      BufferPool.release(buffer);
+    }
+  }
+
+  private static Content read(InputStream inputStream, long expectedLength) throws IOException {
+    // one more byte to detect the end of the stream without growing the buffer, but don't trust a
+    // large expected length, e.g. a bogus Content-Length, for the initial allocation
+    byte[] buffer =
+        BufferPool.acquire(
+            expectedLength >= 0
+                ? (int) Math.min(expectedLength + 1, BufferPool.MAX_POOLED_SIZE)
+                : BufferPool.MIN_SIZE);
+    int length = 0;
+    int read;
+    try {
+      while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+        if (length == buffer.length) {
+          final byte[] grown = BufferPool.grow(buffer, length);
+          BufferPool.release(buffer);
+          buffer = grown;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      BufferPool.release(buffer);
+      throw e;
+    }
+    return new Content(buffer, length);
+  }
+
+  /** Pooled buffer, full up to length */
+  private static final class Content {
+    private final byte[] buffer;
+    private final int length;
+
+    private Content(byte[] buffer, int length) {
+      this.buffer = buffer;
+      this.length = length;
+    }
+  }
 }
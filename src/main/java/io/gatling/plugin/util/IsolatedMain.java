@@ -0,0 +1,220 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Permission;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs a main in the current JVM, in a fresh class loader isolated from the plugin classes, and
+ * restores the system properties, standard streams and context class loader afterwards. Calls to
+ * {@link System#exit(int)} from the threads of the run are trapped and turned into its exit value,
+ * which requires installing a security manager for the duration of the run.
+ *
+ * <p>Runs are serialized, as they share the JVM-wide state.
+ */
+final class IsolatedMain {
+
+  private static final String BOOTER_JAR_PROPERTY = "java.class.path";
+
+  // whether the JVM lets us install a security manager, null until probed
+  private static Boolean securityManagerAllowed;
+
+  private IsolatedMain() {}
+
+  /**
+   * @return whether calls to System.exit can be trapped during the runs, false e.g. from Java 18
+   *     unless the JVM runs with {@code -Djava.security.manager=allow}, or when another security
+   *     manager is installed
+   */
+  static synchronized boolean canTrapExit() {
+    if (System.getSecurityManager() != null) {
+      return false;
+    }
+    if (securityManagerAllowed == null) {
+      final ExitTrap probe = new ExitTrap(Thread.currentThread().getThreadGroup());
+      securityManagerAllowed = probe.install();
+      if (securityManagerAllowed) {
+        probe.uninstall();
+      }
+    }
+    return securityManagerAllowed;
+  }
+
+  /**
+   * @param classpath the classpath of the main
+   * @param booterJar value of {@code java.class.path} during the run, see {@link Fork#booterJar}
+   * @param systemProperties system properties to set for the run
+   * @param out standard output of the run, null to keep the current one
+   * @param err error output of the run, null to keep the current one
+   * @return the exit value of the main: the status passed to System.exit if trapped, -1 if it threw
+   *     an exception, otherwise 0
+   */
+  static synchronized int run(
+      URL[] classpath,
+      String booterJar,
+      String mainClassName,
+      List<String> args,
+      Properties systemProperties,
+      PrintStream out,
+      PrintStream err) {
+    final PrintStream originalOut = System.out;
+    final PrintStream originalErr = System.err;
+    final InputStream originalIn = System.in;
+    final Properties originalProperties = (Properties) System.getProperties().clone();
+
+    // isolate the main from the plugin classes
+    final ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+    final URLClassLoader classLoader = new URLClassLoader(classpath, parent);
+    // the threads of the run, the ones started by the main inherit it
+    final ThreadGroup group = new ThreadGroup("isolated-main");
+    final ExitTrap exitTrap = canTrapExit() ? new ExitTrap(group) : null;
+    if (exitTrap != null) {
+      exitTrap.install();
+    }
+    try {
+      if (out != null) {
+        System.setOut(out);
+      }
+      if (err != null) {
+        System.setErr(err);
+      }
+      System.setIn(new ByteArrayInputStream(new byte[0]));
+      // like a regular fork, see Fork#booterJar
+      System.setProperty(BOOTER_JAR_PROPERTY, booterJar);
+      for (String name : systemProperties.stringPropertyNames()) {
+        System.setProperty(name, systemProperties.getProperty(name));
+      }
+
+      final int[] exitValue = new int[1];
+      final Thread thread =
+          new Thread(
+              group,
+              () -> exitValue[0] = runMain(classLoader, mainClassName, args, exitTrap),
+              "isolated-main");
+      thread.setContextClassLoader(classLoader);
+      thread.start();
+      join(thread);
+      return exitValue[0];
+    } finally {
+      if (exitTrap != null) {
+        exitTrap.uninstall();
+      }
+      try {
+        classLoader.close();
+      } catch (IOException e) {
+        // only leaks file handles
+      }
+      System.out.flush();
+      System.err.flush();
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+      System.setIn(originalIn);
+      System.setProperties(originalProperties);
+    }
+  }
+
+  private static int runMain(
+      ClassLoader classLoader, String mainClassName, List<String> args, ExitTrap exitTrap) {
+    try {
+      MainWithArgsInFile.runMain(classLoader, mainClassName, args);
+    } catch (InvocationTargetException e) {
+      if (!(e.getCause() instanceof ExitTrappedException)) {
+        e.getCause().printStackTrace();
+        return -1;
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      return -1;
+    }
+    // System.exit may have been called by another thread of the run
+    final Integer exitValue = exitTrap != null ? exitTrap.exitValue : null;
+    return exitValue != null ? exitValue : 0;
+  }
+
+  /** Waits for the run, passing on an interruption to it */
+  private static void join(Thread thread) {
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+        thread.interrupt();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class ExitTrappedException extends SecurityException {
+    private ExitTrappedException() {
+      super("System.exit is not allowed in an isolated run");
+    }
+  }
+
+  private static final class ExitTrap extends SecurityManager {
+    private final ThreadGroup group;
+    private volatile Integer exitValue;
+
+    private ExitTrap(ThreadGroup group) {
+      this.group = group;
+    }
+
+    /** @return false if the JVM doesn't allow installing a security manager */
+    private boolean install() {
+      try {
+        System.setSecurityManager(this);
+        return true;
+      } catch (UnsupportedOperationException | SecurityException e) {
+        return false;
+      }
+    }
+
+    private void uninstall() {
+      // unless replaced in the meantime, e.g. by the main
+      if (System.getSecurityManager() == this) {
+        System.setSecurityManager(null);
+      }
+    }
+
+    @Override
+    public void checkExit(int status) {
+      if (group.parentOf(Thread.currentThread().getThreadGroup())) {
+        if (exitValue == null) {
+          exitValue = status;
+        }
+        throw new ExitTrappedException();
+      }
+    }
+
+    @Override
+    public void checkPermission(Permission perm) {}
+
+    @Override
+    public void checkPermission(Permission perm, Object context) {}
+  }
+}
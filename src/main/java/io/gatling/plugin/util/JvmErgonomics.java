@@ -0,0 +1,331 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JVM options for a forked Gatling run sized after the resources of the host: memory and CPUs,
+ * taking the cgroup (v1 or v2) limits into account when running in a container.
+ *
+ * <ul>
+ *   <li>heap: 60% of the memory, between 512 MB and 31 GB so that compressed oops stay enabled
+ *   <li>direct memory: 20% of the memory, at least 256 MB, used by Netty
+ *   <li>GC: ZGC from Java 17 for heaps of 8 GB and more, generational where it's not the default
+ *       yet, otherwise the default G1
+ *   <li>active processor count: the CPUs available to the container
+ * </ul>
+ *
+ * Options explicitly configured by the user always win over the ergonomic ones, and the options
+ * depend on the version of the forked JVM, which may differ from the current one.
+ */
+public final class JvmErgonomics {
+
+  static final long MIN_HEAP_BYTES = 512L * 1024 * 1024;
+  // above, the JVM can't use compressed oops anymore
+  static final long MAX_HEAP_BYTES = 31L * 1024 * 1024 * 1024;
+  static final long MIN_DIRECT_MEMORY_BYTES = 256L * 1024 * 1024;
+  static final long ZGC_MIN_HEAP_BYTES = 8L * 1024 * 1024 * 1024;
+
+  private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+  private static final Pattern RELEASE_VERSION_PATTERN =
+      Pattern.compile("^JAVA_VERSION=\"([^\"]+)\"");
+  private static final Pattern VERSION_OUTPUT_PATTERN = Pattern.compile("version \"([^\"]+)\"");
+  private static final long VERSION_OUTPUT_TIMEOUT_SECONDS = 10;
+
+  private static final int CURRENT_JAVA_MAJOR_VERSION =
+      parseJavaMajorVersion(System.getProperty("java.specification.version"));
+
+  // by canonical path of the java executable
+  private static final Map<String, Integer> JAVA_MAJOR_VERSIONS = new ConcurrentHashMap<>();
+
+  private JvmErgonomics() {}
+
+  /** Memory and CPUs available to the forked JVMs */
+  static final class Resources {
+    final long memoryBytes;
+    final int cpus;
+
+    Resources(long memoryBytes, int cpus) {
+      this.memoryBytes = memoryBytes;
+      this.cpus = cpus;
+    }
+  }
+
+  private static final class HostResourcesHolder {
+    private static final Resources HOST_RESOURCES =
+        detect(CGROUP_ROOT, physicalMemory(), Runtime.getRuntime().availableProcessors());
+  }
+
+  /** @return the memory and CPUs available to the forked JVMs */
+  static Resources hostResources() {
+    return HostResourcesHolder.HOST_RESOURCES;
+  }
+
+  /**
+   * @param javaExecutable the java executable of the forked JVM
+   * @param userOptions the JVM options configured by the user
+   * @return the ergonomic JVM options for the current host and the given JVM, minus the ones the
+   *     user configured
+   */
+  public static List<String> jvmOptions(File javaExecutable, List<String> userOptions) {
+    return withoutUserOverrides(
+        jvmOptions(javaMajorVersion(javaExecutable), hostResources()), userOptions);
+  }
+
+  /**
+   * @return the major version of the given java executable, read from the {@code release} file of
+   *     its Java home or else from its {@code -version} output, or the version of the current JVM
+   *     if it can't be determined
+   */
+  public static int javaMajorVersion(File javaExecutable) {
+    File file;
+    try {
+      file = javaExecutable.getCanonicalFile();
+    } catch (IOException e) {
+      file = javaExecutable.getAbsoluteFile();
+    }
+    return JAVA_MAJOR_VERSIONS.computeIfAbsent(
+        file.getPath(), path -> detectJavaMajorVersion(new File(path)));
+  }
+
+  private static int detectJavaMajorVersion(File javaExecutable) {
+    final File bin = javaExecutable.getParentFile();
+    File javaHome = bin != null ? bin.getParentFile() : null;
+    // the Java 8 JDKs have their release file one level up from their JRE
+    while (javaHome != null) {
+      final String release = readReleaseVersion(new File(javaHome, "release").toPath());
+      if (release != null) {
+        final int version = parseJavaMajorVersion(release);
+        if (version > 0) {
+          return version;
+        }
+      }
+      javaHome = javaHome.getName().equals("jre") ? javaHome.getParentFile() : null;
+    }
+
+    final int version = parseJavaMajorVersion(readVersionOutput(javaExecutable));
+    return version > 0 ? version : CURRENT_JAVA_MAJOR_VERSION;
+  }
+
+  private static String readReleaseVersion(Path release) {
+    try {
+      for (String line : Files.readAllLines(release)) {
+        final Matcher matcher = RELEASE_VERSION_PATTERN.matcher(line);
+        if (matcher.find()) {
+          return matcher.group(1);
+        }
+      }
+    } catch (IOException e) {
+      // no release file
+    }
+    return null;
+  }
+
+  private static String readVersionOutput(File javaExecutable) {
+    try {
+      final Process process =
+          new ProcessBuilder(javaExecutable.getPath(), "-version")
+              .redirectErrorStream(true)
+              .start();
+      process.getOutputStream().close();
+      final String output;
+      try (InputStream in = process.getInputStream()) {
+        output = InputStreamUtils.inputStreamToString(in, StandardCharsets.UTF_8);
+      }
+      if (!process.waitFor(VERSION_OUTPUT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        process.destroy();
+        return null;
+      }
+      final Matcher matcher = VERSION_OUTPUT_PATTERN.matcher(output);
+      return matcher.find() ? matcher.group(1) : null;
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /** @return the major version of the given Java version, e.g. 8 for 1.8.0_392, or -1 */
+  static int parseJavaMajorVersion(String version) {
+    if (version == null) {
+      return -1;
+    }
+    final String[] components = version.split("[.\\-+_]");
+    try {
+      return Integer.parseInt(
+          components[0].equals("1") && components.length > 1 ? components[1] : components[0]);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  static List<String> jvmOptions(int javaMajorVersion, Resources resources) {
+    final long heap =
+        Math.min(MAX_HEAP_BYTES, Math.max(MIN_HEAP_BYTES, resources.memoryBytes / 10 * 6));
+    final long directMemory = Math.max(MIN_DIRECT_MEMORY_BYTES, resources.memoryBytes / 10 * 2);
+
+    final List<String> options = new ArrayList<>();
+    options.add("-Xmx" + toMegabytes(heap));
+    options.add("-XX:MaxDirectMemorySize=" + toMegabytes(directMemory));
+    if (javaMajorVersion >= 17 && heap >= ZGC_MIN_HEAP_BYTES) {
+      options.add("-XX:+UseZGC");
+      if (javaMajorVersion >= 21 && javaMajorVersion < 23) {
+        options.add("-XX:+ZGenerational");
+      }
+    }
+    // not supported by the first Java 8 releases
+    if (javaMajorVersion >= 10) {
+      options.add("-XX:ActiveProcessorCount=" + resources.cpus);
+    }
+    return Collections.unmodifiableList(options);
+  }
+
+  static List<String> withoutUserOverrides(List<String> options, List<String> userOptions) {
+    final List<String> result = new ArrayList<>(options.size());
+    for (String option : options) {
+      final String family = family(option);
+      boolean overridden = false;
+      for (String userOption : userOptions) {
+        if (family.equals(family(userOption))) {
+          overridden = true;
+          break;
+        }
+      }
+      if (!overridden) {
+        result.add(option);
+      }
+    }
+    return result;
+  }
+
+  /** @return a name shared by the options that configure the same setting */
+  private static String family(String option) {
+    if (option.startsWith("-Xmx")
+        || option.startsWith("-XX:MaxHeapSize")
+        || option.startsWith("-XX:MaxRAMPercentage")
+        || option.startsWith("-XX:MaxRAMFraction")) {
+      return "heap";
+    } else if (option.startsWith("-XX:+Use") && option.endsWith("GC")
+        || option.startsWith("-XX:+ZGenerational")
+        || option.startsWith("-XX:-ZGenerational")) {
+      return "gc";
+    } else if (option.startsWith("-XX:MaxDirectMemorySize")
+        || option.startsWith("-Dio.netty.maxDirectMemory")) {
+      return "direct";
+    } else if (option.startsWith("-XX:ActiveProcessorCount")) {
+      return "cpus";
+    }
+    return option;
+  }
+
+  private static String toMegabytes(long bytes) {
+    return (bytes / (1024 * 1024)) + "m";
+  }
+
+  static Resources detect(Path cgroupRoot, long physicalMemory, int availableProcessors) {
+    long memory = physicalMemory;
+    final long memoryLimit =
+        firstLimit(
+            readLimit(cgroupRoot.resolve("memory.max")),
+            readLimit(cgroupRoot.resolve("memory/memory.limit_in_bytes")));
+    if (memoryLimit > 0 && memoryLimit < memory) {
+      memory = memoryLimit;
+    }
+
+    int cpus = availableProcessors;
+    final long[] cpuQuota = readCpuQuota(cgroupRoot);
+    if (cpuQuota != null) {
+      cpus = (int) Math.max(1, Math.min(cpus, (cpuQuota[0] + cpuQuota[1] - 1) / cpuQuota[1]));
+    }
+    return new Resources(memory, cpus);
+  }
+
+  private static long firstLimit(long cgroupV2Limit, long cgroupV1Limit) {
+    return cgroupV2Limit > 0 ? cgroupV2Limit : cgroupV1Limit;
+  }
+
+  /** @return the limit in the given cgroup file, or -1 if there's none */
+  private static long readLimit(Path file) {
+    final String value = readFirstLine(file);
+    if (value == null || value.equals("max")) {
+      return -1;
+    }
+    try {
+      // cgroup v1 reports "no limit" as a huge value, that the physical memory will cap
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** @return the CPU quota and period, or null if there's no quota */
+  private static long[] readCpuQuota(Path cgroupRoot) {
+    try {
+      final String cpuMax = readFirstLine(cgroupRoot.resolve("cpu.max"));
+      if (cpuMax != null) {
+        final String[] quotaAndPeriod = cpuMax.split(" ");
+        return quotaAndPeriod[0].equals("max")
+            ? null
+            : new long[] {Long.parseLong(quotaAndPeriod[0]), Long.parseLong(quotaAndPeriod[1])};
+      }
+      final String quota = readFirstLine(cgroupRoot.resolve("cpu/cpu.cfs_quota_us"));
+      final String period = readFirstLine(cgroupRoot.resolve("cpu/cpu.cfs_period_us"));
+      if (quota != null && period != null && Long.parseLong(quota) > 0) {
+        return new long[] {Long.parseLong(quota), Long.parseLong(period)};
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      // unexpected format, ignore
+    }
+    return null;
+  }
+
+  private static String readFirstLine(Path file) {
+    try {
+      final List<String> lines = Files.readAllLines(file);
+      return lines.isEmpty() ? null : lines.get(0).trim();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static long physicalMemory() {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+    }
+    // the default max heap is a quarter of the physical memory
+    return Runtime.getRuntime().maxMemory() * 4;
+  }
+}
@@ -18,6 +18,11 @@ package io.gatling.plugin.util;
 
 public final class LambdaExceptionUtil {
 
+  @FunctionalInterface
+  public interface SupplierWithExceptions<T, E extends Exception> {
+    T get() throws E;
+  }
+
   @FunctionalInterface
   public interface ConsumerWithExceptions<T, E extends Exception> {
     void accept(T t) throws E;
@@ -18,12 +18,15 @@ package io.gatling.plugin.util;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 
 public class MainWithArgsInFile {
 
@@ -31,15 +34,18 @@ public class MainWithArgsInFile {
     try {
       String mainClassName = args[0];
       List<String> argsFromFile = readArgFile(new File(args[1]));
-      runMain(mainClassName, argsFromFile);
+      if (args.length > 2) {
+        // system properties propagated by Fork
+        setSystemProperties(new File(args[2]));
+      }
+      runMain(Thread.currentThread().getContextClassLoader(), mainClassName, argsFromFile);
     } catch (Throwable t) {
       t.printStackTrace();
       System.exit(-1);
     }
   }
 
-  private static void runMain(String mainClassName, List<String> args) throws Exception {
-    ClassLoader cl = Thread.currentThread().getContextClassLoader();
+  static void runMain(ClassLoader cl, String mainClassName, List<String> args) throws Exception {
     Class<?> mainClass = cl.loadClass(mainClassName);
     Method mainMethod = mainClass.getMethod("main", String[].class);
     int mods = mainMethod.getModifiers();
@@ -53,7 +59,17 @@ public class MainWithArgsInFile {
     mainMethod.invoke(null, new Object[] {argsArray});
   }
 
-  private static List<String> readArgFile(File argFile) throws IOException {
+  private static void setSystemProperties(File propertiesFile) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream is = new FileInputStream(propertiesFile)) {
+      properties.load(is);
+    }
+    for (String name : properties.stringPropertyNames()) {
+      System.setProperty(name, properties.getProperty(name));
+    }
+  }
+
+  static List<String> readArgFile(File argFile) throws IOException {
     ArrayList<String> args = new ArrayList<>();
     try (final FileReader fr = new FileReader(argFile);
         final BufferedReader in = new BufferedReader(fr)) {
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.gatling.plugin.client.EnterpriseClient;
+import io.gatling.plugin.exceptions.EnterprisePluginException;
+import io.gatling.plugin.exceptions.SimulationNotFoundException;
+import io.gatling.plugin.exceptions.SimulationStartException;
+import io.gatling.plugin.io.PluginLogger;
+import io.gatling.plugin.model.*;
+import io.gatling.plugin.util.checksum.PkgChecksum;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class BatchEnterprisePluginClientTest {
+
+  private static final String CLASS_NAME = "frontline.sample.BasicSimulation";
+
+  private static final PluginLogger LOGGER =
+      new PluginLogger() {
+        @Override
+        public void info(String message) {}
+
+        @Override
+        public void error(String message) {}
+      };
+
+  private final File ARTIFACT_FILE =
+      new File(getClass().getResource("/artifacts/maven-sample.jar").getPath());
+
+  @Test
+  void uploadPackageAndStartSimulations_PartialFailure() throws Exception {
+    final UUID sharedPkgId = UUID.randomUUID();
+    final UUID otherPkgId = UUID.randomUUID();
+    final Simulation first = simulation(sharedPkgId);
+    final Simulation second = simulation(sharedPkgId);
+    final Simulation failingStart = simulation(otherPkgId);
+    final UUID missingSimulationId = UUID.randomUUID();
+    final FakeEnterpriseClient enterpriseClient =
+        new FakeEnterpriseClient(Arrays.asList(first, second, failingStart), failingStart.id);
+    final Set<UUID> simulationIds =
+        new LinkedHashSet<>(
+            Arrays.asList(first.id, second.id, failingStart.id, missingSimulationId));
+
+    final List<BatchSimulationStartResult> results =
+        new BatchEnterprisePluginClient(enterpriseClient, LOGGER)
+            .uploadPackageAndStartSimulations(
+                simulationIds, Collections.emptyMap(), Collections.emptyMap(), ARTIFACT_FILE, 2);
+
+    assertEquals(4, results.size());
+    assertTrue(results.get(0).isStarted());
+    assertEquals(first, results.get(0).startResult.simulation);
+    assertTrue(results.get(1).isStarted());
+    assertEquals(second, results.get(1).startResult.simulation);
+    assertFalse(results.get(2).isStarted());
+    assertEquals(failingStart.id, results.get(2).simulationId);
+    assertInstanceOf(SimulationStartException.class, results.get(2).failure);
+    assertFalse(results.get(3).isStarted());
+    assertEquals(missingSimulationId, results.get(3).simulationId);
+    assertInstanceOf(SimulationNotFoundException.class, results.get(3).failure);
+  }
+
+  @Test
+  void uploadPackageAndStartSimulations_UploadsEachPackageOnce() throws Exception {
+    final UUID sharedPkgId = UUID.randomUUID();
+    final UUID otherPkgId = UUID.randomUUID();
+    final List<Simulation> simulations =
+        Arrays.asList(
+            simulation(sharedPkgId),
+            simulation(sharedPkgId),
+            simulation(sharedPkgId),
+            simulation(otherPkgId));
+    final FakeEnterpriseClient enterpriseClient = new FakeEnterpriseClient(simulations, null);
+    final Set<UUID> simulationIds = new LinkedHashSet<>();
+    for (Simulation simulation : simulations) {
+      simulationIds.add(simulation.id);
+    }
+
+    final List<BatchSimulationStartResult> results =
+        new BatchEnterprisePluginClient(enterpriseClient, LOGGER)
+            .uploadPackageAndStartSimulations(
+                simulationIds, Collections.emptyMap(), Collections.emptyMap(), ARTIFACT_FILE, 4);
+
+    assertTrue(results.stream().allMatch(BatchSimulationStartResult::isStarted));
+    assertEquals(2, enterpriseClient.uploads.size());
+    assertEquals(1, enterpriseClient.uploads.get(sharedPkgId).get());
+    assertEquals(1, enterpriseClient.uploads.get(otherPkgId).get());
+    assertEquals(
+        Collections.singleton(PkgChecksum.computeChecksum(ARTIFACT_FILE)),
+        enterpriseClient.checksums);
+  }
+
+  private static Simulation simulation(UUID pkgId) {
+    final UUID id = UUID.randomUUID();
+    return new Simulation(id, "simulation-" + id, UUID.randomUUID(), CLASS_NAME, pkgId);
+  }
+
+  /** Serves the given simulations, and records the package uploads */
+  private static final class FakeEnterpriseClient implements EnterpriseClient {
+    private final Map<UUID, Simulation> simulations = new HashMap<>();
+    private final UUID failingStartSimulationId;
+    private final Map<UUID, AtomicInteger> uploads = new ConcurrentHashMap<>();
+    private final Set<String> checksums = ConcurrentHashMap.newKeySet();
+
+    private FakeEnterpriseClient(List<Simulation> simulations, UUID failingStartSimulationId) {
+      for (Simulation simulation : simulations) {
+        this.simulations.put(simulation.id, simulation);
+      }
+      this.failingStartSimulationId = failingStartSimulationId;
+    }
+
+    @Override
+    public ServerInformation getServerInformation() {
+      return new ServerInformation(new Versions(new VersionSupported("8", "17")));
+    }
+
+    @Override
+    public Simulation getSimulation(UUID simulationId) throws EnterprisePluginException {
+      final Simulation simulation = simulations.get(simulationId);
+      if (simulation == null) {
+        throw new SimulationNotFoundException(simulationId);
+      }
+      return simulation;
+    }
+
+    @Override
+    public long uploadPackageWithChecksum(UUID packageId, File file, String precomputedChecksum) {
+      uploads.computeIfAbsent(packageId, id -> new AtomicInteger()).incrementAndGet();
+      checksums.add(precomputedChecksum);
+      return file.length();
+    }
+
+    @Override
+    public RunSummary startSimulation(
+        UUID simulationId,
+        Map<String, String> systemProperties,
+        Map<String, String> environmentVariables)
+        throws EnterprisePluginException {
+      final Simulation simulation = getSimulation(simulationId);
+      if (simulationId.equals(failingStartSimulationId)) {
+        throw new SimulationStartException(simulation, false, new IllegalStateException("boom"));
+      }
+      return new RunSummary(UUID.randomUUID(), simulation.className, "/reports");
+    }
+
+    @Override
+    public List<Simulation> getSimulations() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<SimulationSummary> getSimulationSummaries() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Team> getTeams() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Pool> getPools() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<PkgIndex> getPackages() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Pkg getPackage(UUID pkgId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long uploadPackage(UUID packageId, File file) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long uploadPackageWithChecksum(UUID packageId, File file) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SimulationClassName updateSimulationClassName(UUID simulationId, String className) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Simulation createSimulation(
+        String simulationName,
+        UUID teamId,
+        String className,
+        UUID pkgId,
+        Map<UUID, HostByPool> hostsByPool) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Pkg createPackage(String packageName, UUID teamId) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -103,4 +103,46 @@ public class ApiPathTest {
             "https://example.com/base/path/=&%3F%20%C2%A3/%C3%A9%E1%B8%80?cl%C3%A91=%3D%26%3F+%C2%A3%C3%A9%E1%B8%80%0A%2F%2F"),
         path.buildUrl(BASE_URL));
   }
+
+  @Test
+  void template() throws Exception {
+    ApiPath.Template template = ApiPath.template("simulations/{id}/classname");
+    assertEquals(
+        new URL("https://example.com/base/path/simulations/1234-abcd/classname"),
+        template.expand("1234-abcd").buildUrl(BASE_URL));
+    assertEquals(
+        ApiPath.of("simulations", "5678").buildUrl(BASE_URL),
+        ApiPath.template("simulations/{id}").expand("5678").buildUrl(BASE_URL_SLASH));
+  }
+
+  @Test
+  void templateEncoding() throws Exception {
+    ApiPath path =
+        ApiPath.template("=&? £/{value}").expand("éḀ").addQueryParam("clé1", "=&? £éḀ\n//");
+    assertEquals(
+        new URL(
+            "https://example.com/base/path/=&%3F%20%C2%A3/%C3%A9%E1%B8%80?cl%C3%A91=%3D%26%3F+%C2%A3%C3%A9%E1%B8%80%0A%2F%2F"),
+        path.buildUrl(BASE_URL));
+  }
+
+  @Test
+  void templateResource() {
+    assertEquals("artifacts", ApiPath.template("artifacts/{id}/content").expand("1").resource());
+  }
+
+  @Test
+  void templateWrongValueCount() {
+    ApiPath.Template template = ApiPath.template("simulations/{id}/classname");
+    assertThrows(IllegalArgumentException.class, template::expand);
+    assertThrows(IllegalArgumentException.class, () -> template.expand("1", "2"));
+  }
+
+  @Test
+  void builtUrlPerBaseUrl() throws Exception {
+    ApiPath path = ApiPath.of("foo");
+    URL otherBaseUrl = new URL("https://other.example.com");
+    assertSame(path.buildUrl(BASE_URL), path.buildUrl(BASE_URL));
+    assertEquals(new URL("https://other.example.com/foo"), path.buildUrl(otherBaseUrl));
+    assertEquals("https://example.com/base/path/foo", path.buildUrlString(BASE_URL));
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.gatling.plugin.model.Team;
+import io.gatling.plugin.util.CacheDirectory;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CatalogCacheTest {
+
+  private static final String TOKEN = "test-auth-token";
+
+  @TempDir Path cacheDirectory;
+
+  private URL baseUrl;
+
+  @BeforeEach
+  void setCacheDirectory() throws Exception {
+    System.setProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    baseUrl = new URL("http://localhost:9999/");
+  }
+
+  @AfterEach
+  void clearCacheDirectory() {
+    System.clearProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY);
+  }
+
+  private static List<Team> teams(String name) {
+    return Collections.singletonList(new Team(UUID.randomUUID(), name));
+  }
+
+  @Test
+  void get_FetchedAgainOnceExpired() throws Exception {
+    final CatalogCache cache = new CatalogCache(baseUrl, TOKEN, 300);
+    final AtomicInteger fetches = new AtomicInteger();
+    final List<Team> teams = teams("team");
+
+    assertEquals(
+        teams,
+        cache.get(
+            CatalogCache.TEAMS,
+            () -> {
+              fetches.incrementAndGet();
+              return teams;
+            }));
+    assertEquals(teams, cache.getIfPresent(CatalogCache.TEAMS));
+
+    Thread.sleep(400);
+    assertNull(cache.getIfPresent(CatalogCache.TEAMS));
+    final List<Team> fetched = teams("fetched again");
+    assertEquals(
+        fetched,
+        cache.get(
+            CatalogCache.TEAMS,
+            () -> {
+              fetches.incrementAndGet();
+              return fetched;
+            }));
+    assertEquals(2, fetches.get());
+  }
+
+  @Test
+  void get_RefreshedInBackgroundPastHalfTheMaxAge() throws Exception {
+    final CatalogCache cache = new CatalogCache(baseUrl, TOKEN, 2000);
+    final List<Team> teams = teams("team");
+    final List<Team> refreshed = teams("refreshed");
+    cache.get(CatalogCache.TEAMS, () -> teams);
+
+    Thread.sleep(1100);
+    // served from the cache, while refreshed
+    assertEquals(teams, cache.get(CatalogCache.TEAMS, () -> refreshed));
+
+    final long deadline = System.currentTimeMillis() + 5000;
+    while (!refreshed.equals(cache.getIfPresent(CatalogCache.TEAMS))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(refreshed, cache.getIfPresent(CatalogCache.TEAMS));
+  }
+
+  @Test
+  void invalidate_WinsOverConcurrentFetch() throws Exception {
+    final CatalogCache cache = new CatalogCache(baseUrl, TOKEN, 60_000);
+    final List<Team> stale = teams("stale");
+
+    // e.g. a team created by another thread while the catalog was fetched
+    final List<Team> fetched =
+        cache.get(
+            CatalogCache.TEAMS,
+            () -> {
+              cache.invalidate(CatalogCache.TEAMS);
+              return stale;
+            });
+
+    assertEquals(stale, fetched);
+    assertNull(cache.getIfPresent(CatalogCache.TEAMS));
+    final List<Team> teams = teams("team");
+    assertEquals(teams, cache.get(CatalogCache.TEAMS, () -> teams));
+    assertEquals(teams, cache.getIfPresent(CatalogCache.TEAMS));
+  }
+
+  @Test
+  void getIfPresent_LoadedFromDisk() throws Exception {
+    final List<Team> teams = teams("team");
+    new CatalogCache(baseUrl, TOKEN, 60_000).get(CatalogCache.TEAMS, () -> teams);
+
+    // e.g. the next plugin run
+    assertEquals(teams, new CatalogCache(baseUrl, TOKEN, 60_000).getIfPresent(CatalogCache.TEAMS));
+    assertNull(new CatalogCache(baseUrl, "other-token", 60_000).getIfPresent(CatalogCache.TEAMS));
+    assertNull(new CatalogCache(baseUrl, TOKEN, 60_000).getIfPresent(CatalogCache.POOLS));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class Http2TransportTest {
+
+  private final File ARTIFACT_FILE =
+      new File(getClass().getResource("/artifacts/maven-sample.jar").getPath());
+
+  @Test
+  void execute_GetAndUpload() throws Exception {
+    final Http2Transport transport = Http2Transport.instance();
+    assumeTrue(transport != null, "Java HTTP client not available");
+
+    try (MockWebServer server = new MockWebServer()) {
+      server.enqueue(
+          new MockResponse()
+              .setResponseCode(HttpURLConnection.HTTP_OK)
+              .setHeader("ETag", "\"v1\"")
+              .setBody("{}"));
+      server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND));
+      server.start();
+
+      final TransportResponse getResponse =
+          transport.execute(
+              new TransportRequest("GET", server.url("/artifacts").url())
+                  .header("Authorization", "token"));
+      assertEquals(HttpURLConnection.HTTP_OK, getResponse.code);
+      assertEquals("\"v1\"", getResponse.header("etag"));
+      assertEquals("{}", new String(getResponse.body, StandardCharsets.UTF_8));
+      final RecordedRequest get = server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals("token", get.getHeader("Authorization"));
+
+      final TransportResponse putResponse =
+          transport.execute(
+              new TransportRequest("PUT", server.url("/artifacts/content").url())
+                  .body(RequestBody.ofFile(ARTIFACT_FILE)));
+      assertEquals(HttpURLConnection.HTTP_NOT_FOUND, putResponse.code);
+      final RecordedRequest put = server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals(ARTIFACT_FILE.length(), put.getBodySize());
+    }
+  }
+
+  @Test
+  void execute_SlowDownloadOutlastingTheReadTimeout() throws Exception {
+    assumeTrue(Http2Transport.instance() != null, "Java HTTP client not available");
+    final Http2Transport transport = new Http2Transport(1_000, 300);
+
+    try (MockWebServer server = new MockWebServer()) {
+      // about 1 second in total, but never idle for the read timeout
+      server.enqueue(
+          new MockResponse()
+              .setBody(new Buffer().write(new byte[5 * 1024]))
+              .throttleBody(512, 100, TimeUnit.MILLISECONDS));
+      server.start();
+
+      final TransportResponse response =
+          transport.execute(new TransportRequest("GET", server.url("/simulations").url()));
+      assertEquals(HttpURLConnection.HTTP_OK, response.code);
+      assertEquals(5 * 1024, response.body.length);
+    }
+  }
+
+  @Test
+  void execute_StalledResponseTimesOut() throws Exception {
+    assumeTrue(Http2Transport.instance() != null, "Java HTTP client not available");
+    final Http2Transport transport = new Http2Transport(1_000, 300);
+
+    try (MockWebServer server = new MockWebServer()) {
+      server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(5, TimeUnit.SECONDS));
+      server.start();
+
+      final long start = System.nanoTime();
+      assertThrows(
+          SocketTimeoutException.class,
+          () -> transport.execute(new TransportRequest("GET", server.url("/simulations").url())));
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    }
+  }
+}
@@ -23,12 +23,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.plugin.client.json.JsonUtil;
 import io.gatling.plugin.exceptions.*;
+import io.gatling.plugin.model.Packages;
 import io.gatling.plugin.model.Pkg;
 import io.gatling.plugin.model.PkgIndex;
 import io.gatling.plugin.model.ServerInformation;
+import io.gatling.plugin.model.SimulationSummary;
 import io.gatling.plugin.model.VersionSupported;
 import io.gatling.plugin.model.Versions;
+import io.gatling.plugin.util.CacheDirectory;
 import io.gatling.plugin.util.LambdaExceptionUtil.*;
 import java.io.BufferedReader;
 import java.io.File;
@@ -38,16 +42,31 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class HttpEnterpriseClientTest {
 
@@ -57,6 +76,22 @@ public class HttpEnterpriseClientTest {
   private final File ARTIFACT_FILE =
       new File(getClass().getResource("/artifacts/maven-sample.jar").getPath());
 
+  @TempDir Path cacheDirectory;
+
+  @BeforeEach
+  void setCacheDirectory() {
+    System.setProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    // requests must reach the server, see getPackages_CatalogCache_ServedFromCache
+    System.setProperty(CatalogCache.MAX_AGE_PROPERTY, "0");
+  }
+
+  @AfterEach
+  void clearCacheDirectory() {
+    System.clearProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY);
+    System.clearProperty(CatalogCache.MAX_AGE_PROPERTY);
+    System.clearProperty(PreConnectingTransport.PRE_CONNECT_PROPERTY);
+  }
+
   private <T> T withMockWebServer(
       MockResponse response,
       BiFunctionWithExceptions<MockWebServer, HttpEnterpriseClient, T, Exception> testFunction)
@@ -100,6 +135,64 @@ public class HttpEnterpriseClientTest {
         });
   }
 
+  /** Unlike MockWebServer by default, closes the connections of the requests asking to */
+  private static MockWebServer closingServer(String infoResponseBody) throws IOException {
+    final MockWebServer server = new MockWebServer();
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            final MockResponse response =
+                new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK);
+            if (request.getMethod().equals("GET") && request.getPath().equals("/api/public/info")) {
+              response.setBody(infoResponseBody);
+            }
+            return "close".equalsIgnoreCase(request.getHeader("Connection"))
+                ? response.setSocketPolicy(SocketPolicy.DISCONNECT_AT_END)
+                : response;
+          }
+        });
+    server.start();
+    return server;
+  }
+
+  @Test
+  void preConnect_Enabled_ConnectionReused() throws Exception {
+    System.setProperty(PreConnectingTransport.PRE_CONNECT_PROPERTY, "true");
+    try (MockWebServer server = closingServer(loadJson("/api/responses/serverInformation.json"))) {
+      final HttpEnterpriseClient client =
+          new HttpEnterpriseClient(server.url("/").url(), AUTH_TOKEN, "client", "version");
+      server.takeRequest(1, TimeUnit.SECONDS);
+
+      client.preConnect();
+      client.getServerInformation();
+      final RecordedRequest preConnection = server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals("HEAD", preConnection.getMethod());
+      assertEquals(AUTH_TOKEN, preConnection.getHeader("Authorization"));
+      assertEquals(0, preConnection.getSequenceNumber());
+      final RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals("/api/public/info", request.getPath());
+      // second request on the connection opened ahead
+      assertEquals(1, request.getSequenceNumber());
+    }
+  }
+
+  @Test
+  void preConnect_Disabled_NoRequest() throws Exception {
+    try (MockWebServer server = closingServer(loadJson("/api/responses/serverInformation.json"))) {
+      final HttpEnterpriseClient client =
+          new HttpEnterpriseClient(server.url("/").url(), AUTH_TOKEN, "client", "version");
+      server.takeRequest(1, TimeUnit.SECONDS);
+
+      client.preConnect();
+      client.getServerInformation();
+      final RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals("GET", request.getMethod());
+      assertEquals(0, request.getSequenceNumber());
+      assertEquals(2, server.getRequestCount());
+    }
+  }
+
   @Test
   void getPackagesOk() throws Exception {
     final String responseBody = loadJson("/api/responses/getPackages.json");
@@ -132,6 +225,253 @@ public class HttpEnterpriseClientTest {
         });
   }
 
+  @Test
+  void getSimulationSummariesOk() throws Exception {
+    final String responseBody = loadJson("/api/responses/getSimulations.json");
+    final List<SimulationSummary> expectedResponse =
+        Collections.singletonList(
+            new SimulationSummary(
+                UUID.fromString("00000000-0000-0000-0000-000000000001"),
+                "name 1",
+                "computerdatabase.BasicSimulation",
+                UUID.fromString("00000000-0000-0000-0000-200000000000")));
+    withMockWebServer(
+        new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK).setBody(responseBody),
+        (server, client) -> {
+          final List<SimulationSummary> response = client.getSimulationSummaries();
+          final RecordedRequest record = server.takeRequest(1, TimeUnit.SECONDS);
+          assertEquals("/api/public/simulations", record.getPath());
+          assertEquals(expectedResponse, response);
+          return null;
+        });
+  }
+
+  @Test
+  void getPackages_ConcurrentCalls_SharedRequest() throws Exception {
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    withMockWebServer(
+        new MockResponse()
+            .setResponseCode(HttpURLConnection.HTTP_OK)
+            .setBody(responseBody)
+            .setHeadersDelay(500, TimeUnit.MILLISECONDS),
+        (server, client) -> {
+          final ExecutorService executor = Executors.newFixedThreadPool(2);
+          try {
+            final Future<List<PkgIndex>> first = executor.submit(client::getPackages);
+            final Future<List<PkgIndex>> second = executor.submit(client::getPackages);
+            assertEquals(first.get(), second.get());
+          } finally {
+            executor.shutdown();
+          }
+          // the version check, then a single call for both threads
+          assertEquals(2, server.getRequestCount());
+          return null;
+        });
+  }
+
+  @Test
+  void getPackages_NotModified_CachedResponse() throws Exception {
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    final String createPackageBody = loadJson("/api/responses/createPackage.json");
+    withMockWebServer(
+        Arrays.asList(
+            new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .setHeader("ETag", "\"v1\"")
+                .setBody(responseBody),
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_MODIFIED),
+            new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .setBody(createPackageBody),
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK).setBody(responseBody)),
+        (server, client) -> {
+          final List<PkgIndex> expectedResponse = client.getPackages();
+          assertNull(server.takeRequest(1, TimeUnit.SECONDS).getHeader("If-None-Match"));
+          assertOwnerOnly(cacheDirectory.resolve(HttpResponseCache.HTTP_CACHE_NAME));
+
+          assertEquals(expectedResponse, client.getPackages());
+          assertEquals(
+              "\"v1\"", server.takeRequest(1, TimeUnit.SECONDS).getHeader("If-None-Match"));
+
+          // our own changes invalidate the cached packages
+          client.createPackage("test package name", null);
+          server.takeRequest(1, TimeUnit.SECONDS);
+          assertEquals(expectedResponse, client.getPackages());
+          assertNull(server.takeRequest(1, TimeUnit.SECONDS).getHeader("If-None-Match"));
+          return null;
+        });
+  }
+
+  @Test
+  void getPackages_CatalogCache_ServedFromCache() throws Exception {
+    System.setProperty(CatalogCache.MAX_AGE_PROPERTY, "60");
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    final String createPackageBody = loadJson("/api/responses/createPackage.json");
+    withMockWebServer(
+        Arrays.asList(
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK).setBody(responseBody),
+            // version check of the next client
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK),
+            new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .setBody(createPackageBody),
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK).setBody(responseBody)),
+        (server, client) -> {
+          final List<PkgIndex> expectedResponse = client.getPackages();
+          assertEquals(2, server.getRequestCount());
+          assertEquals(expectedResponse, client.getPackages());
+          assertEquals(2, server.getRequestCount());
+
+          assertOwnerOnly(cacheDirectory.resolve(CatalogCache.CATALOG_CACHE_NAME));
+
+          // the next runs load the catalog from the disk
+          final HttpEnterpriseClient nextClient =
+              new HttpEnterpriseClient(server.url("/").url(), AUTH_TOKEN, "client", "version");
+          assertEquals(3, server.getRequestCount());
+          assertEquals(expectedResponse, nextClient.getPackages());
+          assertEquals(3, server.getRequestCount());
+
+          // our own changes invalidate the cached packages
+          nextClient.createPackage("test package name", null);
+          assertEquals(expectedResponse, nextClient.getPackages());
+          assertEquals(5, server.getRequestCount());
+          return null;
+        });
+  }
+
+  /** Private API responses must not be readable by the other users */
+  private static void assertOwnerOnly(Path directory) throws IOException {
+    if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      return;
+    }
+    assertEquals(
+        "rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+    final File[] files = directory.toFile().listFiles();
+    assertNotNull(files);
+    assertNotEquals(0, files.length);
+    for (File file : files) {
+      assertEquals(
+          "rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+    }
+  }
+
+  @Test
+  void getPackages_GzipEncoded_Decoded() throws Exception {
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    final Buffer encoded = new Buffer();
+    try (BufferedSink sink = Okio.buffer(new GzipSink(encoded))) {
+      sink.writeUtf8(responseBody);
+    }
+    final long encodedSize = encoded.size();
+    withMockWebServer(
+        Arrays.asList(
+            new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK).setBody(responseBody),
+            new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(encoded)),
+        (server, client) -> {
+          final List<PkgIndex> expectedResponse = client.getPackages();
+          final RecordedRequest record = server.takeRequest(1, TimeUnit.SECONDS);
+          assertEquals("gzip, deflate", record.getHeader("Accept-Encoding"));
+
+          assertEquals(expectedResponse, client.getPackages());
+          final TransferMetrics metrics = client.getTransferMetrics();
+          assertEquals(1, metrics.compressedResponses());
+          assertEquals(
+              responseBody.length() + encodedSize, metrics.transferredBytes(), "transferred");
+          assertEquals(2L * responseBody.length(), metrics.decodedBytes(), "decoded");
+          return null;
+        });
+  }
+
+  /**
+   * A server answering the packages listing in Smile when the client accepts it and the server
+   * supports it, otherwise in JSON; a strict server answers 406 to clients not accepting JSON first
+   */
+  private static MockWebServer negotiatingServer(
+      String responseBody, boolean smileSupported, boolean strict) throws IOException {
+    final MockWebServer server = new MockWebServer();
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            if (!request.getPath().equals("/api/public/artifacts")) {
+              // version check
+              return new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK);
+            }
+            final String accept = request.getHeader("Accept");
+            if (!accept.startsWith("application/json") && strict) {
+              return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_ACCEPTABLE);
+            } else if (accept.startsWith("application/x-jackson-smile") && smileSupported) {
+              try {
+                return new MockResponse()
+                    .setResponseCode(HttpURLConnection.HTTP_OK)
+                    .setHeader("Content-Type", "application/x-jackson-smile")
+                    .setBody(
+                        new Buffer()
+                            .write(
+                                JsonUtil.SMILE_MAPPER.writeValueAsBytes(
+                                    JsonUtil.JSON_MAPPER.readTree(responseBody))));
+              } catch (IOException e) {
+                throw new IllegalStateException(e);
+              }
+            }
+            return new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_OK)
+                .setHeader("Content-Type", "application/json")
+                .setBody(responseBody);
+          }
+        });
+    server.start();
+    return server;
+  }
+
+  @Test
+  void getPackages_SmilePreferred_SmileResponse() throws Exception {
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    final List<PkgIndex> expectedResponse =
+        JsonUtil.JSON_MAPPER.readValue(responseBody, Packages.class).data;
+    System.setProperty(PayloadFormat.FORMAT_PROPERTY, "smile");
+    try (MockWebServer server = negotiatingServer(responseBody, true, false)) {
+      final HttpEnterpriseClient client =
+          new HttpEnterpriseClient(server.url("/").url(), AUTH_TOKEN, "client", "version");
+      assertEquals(expectedResponse, client.getPackages());
+      server.takeRequest(1, TimeUnit.SECONDS);
+      assertEquals(
+          "application/x-jackson-smile, application/json;q=0.9",
+          server.takeRequest(1, TimeUnit.SECONDS).getHeader("Accept"));
+      // smaller than the JSON text
+      assertTrue(client.getTransferMetrics().decodedBytes() < responseBody.length());
+    } finally {
+      System.clearProperty(PayloadFormat.FORMAT_PROPERTY);
+    }
+  }
+
+  @Test
+  void getPackages_SmilePreferredByJsonOnlyServer_JsonResponse() throws Exception {
+    final String responseBody = loadJson("/api/responses/getPackages.json");
+    final List<PkgIndex> expectedResponse =
+        JsonUtil.JSON_MAPPER.readValue(responseBody, Packages.class).data;
+    System.setProperty(PayloadFormat.FORMAT_PROPERTY, "smile");
+    try (MockWebServer lenientServer = negotiatingServer(responseBody, false, false);
+        MockWebServer strictServer = negotiatingServer(responseBody, false, true)) {
+      assertEquals(
+          expectedResponse,
+          new HttpEnterpriseClient(lenientServer.url("/").url(), AUTH_TOKEN, "client", "version")
+              .getPackages());
+
+      final HttpEnterpriseClient strictClient =
+          new HttpEnterpriseClient(strictServer.url("/").url(), AUTH_TOKEN, "client", "version");
+      assertEquals(expectedResponse, strictClient.getPackages());
+      assertEquals(expectedResponse, strictClient.getPackages());
+      // the version check, then only the first listing is retried in JSON
+      assertEquals(4, strictServer.getRequestCount());
+    } finally {
+      System.clearProperty(PayloadFormat.FORMAT_PROPERTY);
+    }
+  }
+
   @Test
   void createPackageOk() throws Exception {
     final String responseBody = loadJson("/api/responses/createPackage.json");
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class PreConnectingTransportTest {
+
+  @Test
+  void execute_DoesNotWaitForAStalledPreConnection() throws Exception {
+    final CountDownLatch preConnectionInterrupted = new CountDownLatch(1);
+    final HttpTransport delegate =
+        new HttpTransport() {
+          @Override
+          public TransportResponse execute(TransportRequest request) {
+            return null;
+          }
+
+          @Override
+          public void preConnect(TransportRequest request) {
+            try {
+              new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+              preConnectionInterrupted.countDown();
+            }
+          }
+        };
+    final PreConnectingTransport transport = new PreConnectingTransport(delegate, 200);
+    final URL url = new URL("http://localhost:9999/api/public/info");
+
+    transport.preConnect(new TransportRequest("HEAD", url));
+    final long start = System.nanoTime();
+    transport.execute(new TransportRequest("GET", url));
+
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    assertTrue(preConnectionInterrupted.await(5, TimeUnit.SECONDS));
+  }
+}
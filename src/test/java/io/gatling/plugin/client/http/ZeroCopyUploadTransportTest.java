@@ -0,0 +1,76 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class ZeroCopyUploadTransportTest {
+
+  private static TransportResponse readResponse(String response) throws Exception {
+    return ZeroCopyUploadTransport.readResponse(
+        new ByteArrayInputStream(response.getBytes(StandardCharsets.ISO_8859_1)));
+  }
+
+  @Test
+  void readResponse_ChunkedAsFinalTransferCoding() throws Exception {
+    final TransportResponse response =
+        readResponse(
+            "HTTP/1.1 200 OK\r\n"
+                + "Transfer-Encoding: identity\r\n"
+                + "transfer-encoding: Chunked\r\n"
+                + "\r\n"
+                + "5\r\nhello\r\n0\r\n\r\n");
+
+    assertEquals(200, response.code);
+    assertEquals("hello", new String(response.body, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void readResponse_NotChunked_ReadUntilClosed() throws Exception {
+    final TransportResponse response =
+        readResponse(
+            "HTTP/1.1 200 OK\r\n"
+                + "Transfer-Encoding: chunked, identity\r\n"
+                + "Content-Length: 2\r\n"
+                + "\r\n"
+                + "hello");
+
+    assertEquals("hello", new String(response.body, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void readResponse_ContentLength() throws Exception {
+    final TransportResponse response =
+        readResponse("HTTP/1.1 201 Created\r\nContent-Length: 5\r\n\r\nhello");
+
+    assertEquals(201, response.code);
+    assertEquals("hello", new String(response.body, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void readResponse_ContentLengthLargerThanBody() {
+    // not allocated upfront
+    assertThrows(
+        EOFException.class,
+        () -> readResponse("HTTP/1.1 200 OK\r\nContent-Length: 2147483647\r\n\r\nhello"));
+  }
+}
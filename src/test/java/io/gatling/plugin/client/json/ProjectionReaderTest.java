@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.client.json;
+
+import static io.gatling.plugin.client.json.JsonUtil.JSON_MAPPER;
+import static io.gatling.plugin.client.json.JsonUtil.SMILE_MAPPER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.DatabindException;
+import io.gatling.plugin.model.SimulationSummary;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+public class ProjectionReaderTest {
+
+  private static final ProjectionReader<SimulationSummary> READER =
+      new ProjectionReader<>(
+          SimulationSummary.class,
+          Arrays.asList("id", "name", "className", "build.pkgId"),
+          values ->
+              new SimulationSummary(
+                  values.uuid(0), values.string(1), values.string(2), values.uuid(3)));
+
+  private static final String SIMULATIONS =
+      "[{\"id\":\"c0074b5a-5b97-4fbb-bad9-b3848bac3082\",\"teamId\":\"40084389-c812-42c1-aaef-f8730959510c\",\"name\":\"First simulation\",\"className\":\"computerdatabase.BasicSimulation\",\"build\":{\"artifactId\":\"ignored\",\"pkgId\":\"44191a0c-2e15-49b3-8876-7aa47cc97587\"},\"systemProperties\":{\"name\":{\"nested\":[1,2]}},\"hostsByPool\":{}},"
+          + "{\"name\":\"Second simulation\",\"build\":{\"pkgId\":\"c5f9e46c-3860-4d95-a851-db0814bdd360\"},\"className\":\"computerdatabase.AdvancedSimulation\",\"id\":\"0cf26226-b261-4af6-a52a-1fec36f4394a\",\"usePoolWeights\":false}]";
+
+  private static final SimulationSummary FIRST_SIMULATION =
+      new SimulationSummary(
+          UUID.fromString("c0074b5a-5b97-4fbb-bad9-b3848bac3082"),
+          "First simulation",
+          "computerdatabase.BasicSimulation",
+          UUID.fromString("44191a0c-2e15-49b3-8876-7aa47cc97587"));
+  private static final SimulationSummary SECOND_SIMULATION =
+      new SimulationSummary(
+          UUID.fromString("0cf26226-b261-4af6-a52a-1fec36f4394a"),
+          "Second simulation",
+          "computerdatabase.AdvancedSimulation",
+          UUID.fromString("c5f9e46c-3860-4d95-a851-db0814bdd360"));
+
+  @Test
+  public void readList_json() throws IOException {
+    assertEquals(
+        Arrays.asList(FIRST_SIMULATION, SECOND_SIMULATION),
+        READER.readList(JSON_MAPPER.getFactory().createParser(SIMULATIONS)));
+    assertEquals(
+        Collections.emptyList(), READER.readList(JSON_MAPPER.getFactory().createParser("[]")));
+  }
+
+  @Test
+  public void readList_smile() throws IOException {
+    final byte[] smile = SMILE_MAPPER.writeValueAsBytes(JSON_MAPPER.readTree(SIMULATIONS));
+    assertEquals(
+        Arrays.asList(FIRST_SIMULATION, SECOND_SIMULATION),
+        READER.readList(SMILE_MAPPER.getFactory().createParser(smile)));
+  }
+
+  @Test
+  public void readList_invalid() {
+    // not an array
+    assertThrows(
+        DatabindException.class,
+        () -> READER.readList(JSON_MAPPER.getFactory().createParser("{\"data\":[]}")));
+    // not an array of objects
+    assertThrows(
+        DatabindException.class,
+        () -> READER.readList(JSON_MAPPER.getFactory().createParser("[1]")));
+    // missing required field
+    assertThrows(
+        DatabindException.class,
+        () ->
+            READER.readList(
+                JSON_MAPPER
+                    .getFactory()
+                    .createParser(
+                        "[{\"id\":\"c0074b5a-5b97-4fbb-bad9-b3848bac3082\",\"name\":\"First simulation\",\"className\":\"computerdatabase.BasicSimulation\"}]")));
+    // field of the wrong type
+    assertThrows(
+        DatabindException.class,
+        () ->
+            READER.readList(
+                JSON_MAPPER
+                    .getFactory()
+                    .createParser(
+                        "[{\"id\":\"c0074b5a-5b97-4fbb-bad9-b3848bac3082\",\"name\":\"First simulation\",\"className\":\"computerdatabase.BasicSimulation\",\"build\":{\"pkgId\":42}}]")));
+  }
+}
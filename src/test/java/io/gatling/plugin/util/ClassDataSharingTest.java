@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.gatling.plugin.io.PluginLogger;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassDataSharingTest {
+
+  private static final String MAIN_CLASS = "io.gatling.app.Gatling";
+
+  private static final PluginLogger LOGGER =
+      new PluginLogger() {
+        @Override
+        public void info(String message) {}
+
+        @Override
+        public void error(String message) {}
+      };
+
+  @TempDir Path cacheDirectory;
+
+  @BeforeEach
+  void setCacheDirectory() {
+    System.setProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+  }
+
+  @AfterEach
+  void clearCacheDirectory() {
+    System.clearProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY);
+  }
+
+  @Test
+  void forRun_UnavailableBeforeJava13(@TempDir Path javaHome) throws Exception {
+    final File java11 = fakeJavaExecutable(javaHome, "11.0.21");
+    final List<String> classpath = Collections.singletonList(javaHome.toString());
+
+    assertNull(
+        ClassDataSharing.forRun(java11, MAIN_CLASS, classpath, Collections.emptyList(), LOGGER));
+  }
+
+  @Test
+  void forRun_UnavailableWhenConfiguredByTheUser(@TempDir Path javaHome) throws Exception {
+    final File java17 = fakeJavaExecutable(javaHome, "17.0.9");
+    final List<String> classpath = Collections.singletonList(javaHome.toString());
+
+    assertNull(
+        ClassDataSharing.forRun(
+            java17, MAIN_CLASS, classpath, Collections.singletonList("-Xshare:off"), LOGGER));
+    assertNotNull(
+        ClassDataSharing.forRun(java17, MAIN_CLASS, classpath, Collections.emptyList(), LOGGER));
+  }
+
+  @Test
+  void afterRun_NewArchiveReplacesTheStaleOneOnly(@TempDir Path javaHome) throws Exception {
+    final File java17 = fakeJavaExecutable(javaHome, "17.0.9");
+    final Path jar = Files.write(javaHome.resolve("simulations.jar"), new byte[] {1});
+    final List<String> classpath = Collections.singletonList(jar.toString());
+
+    final ClassDataSharing firstRun = forRun(java17, classpath);
+    final Path firstArchive = dump(firstRun, "-XX:ArchiveClassesAtExit=");
+    firstRun.afterRun(true);
+    final Path sharedArchive = option(forRun(java17, classpath), "-XX:SharedArchiveFile=");
+    assertTrue(Files.isRegularFile(sharedArchive));
+    assertFalse(Files.exists(firstArchive));
+
+    // a new build of the simulations invalidates the archive
+    Files.write(jar, new byte[] {1, 2});
+    final ClassDataSharing rebuiltRun = forRun(java17, classpath);
+    final ClassDataSharing concurrentRun = forRun(java17, classpath);
+    dump(rebuiltRun, "-XX:ArchiveClassesAtExit=");
+    final Path inProgressArchive = dump(concurrentRun, "-XX:ArchiveClassesAtExit=");
+    rebuiltRun.afterRun(true);
+
+    final Path newArchive = option(forRun(java17, classpath), "-XX:SharedArchiveFile=");
+    assertNotEquals(sharedArchive, newArchive);
+    assertTrue(Files.isRegularFile(newArchive));
+    assertFalse(Files.exists(sharedArchive));
+    assertTrue(Files.exists(inProgressArchive));
+
+    concurrentRun.afterRun(false);
+    assertFalse(Files.exists(inProgressArchive));
+  }
+
+  private static ClassDataSharing forRun(File javaExecutable, List<String> classpath)
+      throws Exception {
+    return ClassDataSharing.forRun(
+        javaExecutable, MAIN_CLASS, classpath, Collections.emptyList(), LOGGER);
+  }
+
+  private static Path option(ClassDataSharing cds, String prefix) {
+    return cds.jvmOptions().stream()
+        .filter(option -> option.startsWith(prefix))
+        .map(option -> new File(option.substring(prefix.length())).toPath())
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("Missing " + prefix + " in " + cds.jvmOptions()));
+  }
+
+  /** Writes the archive the forked JVM would have dumped on exit. */
+  private static Path dump(ClassDataSharing cds, String prefix) throws Exception {
+    return Files.write(option(cds, prefix), new byte[] {42});
+  }
+
+  private static File fakeJavaExecutable(Path javaHome, String javaVersion) throws Exception {
+    Files.createDirectories(javaHome.resolve("bin"));
+    Files.write(javaHome.resolve("release"), ("JAVA_VERSION=\"" + javaVersion + "\"\n").getBytes());
+    return Files.createFile(javaHome.resolve("bin/java")).toFile();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class ExecutorProviderTest {
+
+  private static void assertBoundedConcurrency(ExecutorProvider provider) throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final ExecutorService executor = provider.newExecutor("test", 3);
+    try {
+      final List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                  Thread.sleep(10);
+                  running.decrementAndGet();
+                  return Thread.currentThread().getName();
+                }));
+      }
+      for (Future<String> future : futures) {
+        assertTrue(future.get().startsWith("test-"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(maxRunning.get() <= 3, "ran " + maxRunning.get() + " tasks concurrently");
+  }
+
+  @Test
+  void platformThreads_BoundedConcurrency() throws Exception {
+    assertBoundedConcurrency(ExecutorProvider.platformThreads());
+  }
+
+  @Test
+  void virtualThreads_BoundedConcurrency() throws Exception {
+    // falls back to platform threads before Java 21
+    assertBoundedConcurrency(ExecutorProvider.virtualThreads());
+  }
+}
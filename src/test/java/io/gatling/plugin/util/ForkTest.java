@@ -0,0 +1,414 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.gatling.plugin.io.PluginLogger;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ForkTest {
+
+  public static final class ExitMain {
+    public static void main(String[] args) {
+      System.exit(Integer.parseInt(args[0]));
+    }
+  }
+
+  public static final class PropertyMain {
+    public static void main(String[] args) {
+      final String expected = args.length > 0 ? args[0] : "hello \"world\" \u00e9";
+      System.exit(expected.equals(System.getProperty("fork.test.message")) ? 5 : 1);
+    }
+  }
+
+  public static final class RecordingMain {
+    public static void main(String[] args) throws Exception {
+      Files.write(
+          Paths.get(args[0]),
+          Collections.singletonList("run"),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+      Thread.sleep(Long.parseLong(args[1]));
+    }
+  }
+
+  public static final class JvmNameMain {
+    public static void main(String[] args) throws Exception {
+      Files.write(
+          Paths.get(args[0]),
+          Collections.singletonList(ManagementFactory.getRuntimeMXBean().getName()));
+    }
+  }
+
+  public static final class ThreadExitMain {
+    public static void main(String[] args) throws Exception {
+      final Thread thread = new Thread(() -> System.exit(Integer.parseInt(args[0])));
+      thread.start();
+      thread.join();
+    }
+  }
+
+  private static final PluginLogger LOGGER =
+      new PluginLogger() {
+        @Override
+        public void info(String message) {}
+
+        @Override
+        public void error(String message) {}
+      };
+
+  @TempDir Path cacheDirectory;
+
+  @BeforeEach
+  void setCacheDirectory() {
+    System.setProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString());
+  }
+
+  @AfterEach
+  void clearCacheDirectory() {
+    System.clearProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY);
+  }
+
+  @Test
+  void booterJar_ReusedForSameClasspath() throws Exception {
+    final List<String> classpath = Arrays.asList("/tmp/a.jar", "/tmp/b.jar");
+    final File first = Fork.booterJar(classpath, "MainClass");
+    final long lastModified = first.lastModified();
+    final File second = Fork.booterJar(classpath, "MainClass");
+
+    assertEquals(first, second);
+    assertEquals(lastModified, second.lastModified());
+    try (JarFile jar = new JarFile(second)) {
+      final Manifest manifest = jar.getManifest();
+      assertEquals("MainClass", manifest.getMainAttributes().getValue("Main-Class"));
+      assertEquals(
+          "file:/tmp/a.jar file:/tmp/b.jar", manifest.getMainAttributes().getValue("Class-Path"));
+    }
+  }
+
+  @Test
+  void booterJar_DistinctForDifferentClasspathOrMainClass() throws Exception {
+    final File reference = Fork.booterJar(Arrays.asList("/tmp/a.jar", "/tmp/b.jar"), "MainClass");
+
+    assertNotEquals(
+        reference, Fork.booterJar(Arrays.asList("/tmp/b.jar", "/tmp/a.jar"), "MainClass"));
+    assertNotEquals(
+        reference, Fork.booterJar(Arrays.asList("/tmp/a.jar", "/tmp/b.jar"), "OtherClass"));
+  }
+
+  @Test
+  void daemon_ReusesWorkerAndReportsExitValue() throws Exception {
+    final List<String> classpath =
+        Collections.singletonList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+    final File javaExecutable = new File(System.getProperty("java.home"), "bin/java");
+
+    new Fork(
+            ExitMain.class.getName(),
+            classpath,
+            new ArrayList<>(),
+            Collections.singletonList("0"),
+            javaExecutable,
+            false,
+            LOGGER)
+        .withDaemon(2)
+        .run();
+    final Fork.ForkException e =
+        assertThrows(
+            Fork.ForkException.class,
+            () ->
+                new Fork(
+                        ExitMain.class.getName(),
+                        classpath,
+                        new ArrayList<>(),
+                        Collections.singletonList("3"),
+                        javaExecutable,
+                        false,
+                        LOGGER)
+                    .withDaemon(2)
+                    .run());
+
+    assertEquals(3, e.exitValue);
+    final File[] logFiles =
+        cacheDirectory.resolve("workers").toFile().listFiles((dir, name) -> name.endsWith(".log"));
+    assertNotNull(logFiles);
+    assertEquals(1, logFiles.length);
+  }
+
+  @Test
+  void daemon_IgnoresRegistryAccessibleToOthers() throws Exception {
+    final Path workers = cacheDirectory.resolve("workers");
+    assumeTrue(workers.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    final List<String> classpath =
+        Arrays.asList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath(),
+            new File(Fork.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+
+    daemonFork(classpath, ExitMain.class, "0").run();
+    final File[] registryFiles =
+        workers.toFile().listFiles((dir, name) -> name.endsWith(".worker"));
+    assertNotNull(registryFiles);
+    assertEquals(1, registryFiles.length);
+    final Path registryFile = registryFiles[0].toPath();
+    assertEquals(
+        "rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(workers)));
+    assertEquals(
+        "rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(registryFile)));
+    final List<String> registry = Files.readAllLines(registryFile);
+
+    Files.setPosixFilePermissions(registryFile, PosixFilePermissions.fromString("rw-r--r--"));
+    daemonFork(classpath, ExitMain.class, "0").run();
+
+    // replaced by a new worker, with another token
+    assertNotEquals(registry.get(1), Files.readAllLines(registryFile).get(1));
+    assertEquals(
+        "rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(registryFile)));
+  }
+
+  @Test
+  void daemon_BusyWorkerDoesNotRunStaleRequests() throws Exception {
+    final List<String> classpath =
+        Arrays.asList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath(),
+            new File(Fork.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+    final Path runsFile = cacheDirectory.resolve("runs.txt");
+    // longer than the handshake, so that the concurrent run gives up on the worker
+    final String runMillis = Integer.toString(ForkDaemon.HANDSHAKE_TIMEOUT_MILLIS + 2000);
+
+    // starts the worker
+    daemonFork(classpath, ExitMain.class, "0").run();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<?> first =
+          executor.submit(
+              () -> {
+                daemonFork(classpath, RecordingMain.class, runsFile.toString(), runMillis).run();
+                return null;
+              });
+      final long deadline = System.currentTimeMillis() + 30_000;
+      while (!Files.exists(runsFile) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      final Future<?> second =
+          executor.submit(
+              () -> {
+                daemonFork(classpath, RecordingMain.class, runsFile.toString(), runMillis).run();
+                return null;
+              });
+      first.get();
+      second.get();
+    } finally {
+      executor.shutdownNow();
+    }
+    // queued behind the request of the second run, if the worker were to run it
+    daemonFork(classpath, ExitMain.class, "0").run();
+
+    assertEquals(2, Files.readAllLines(runsFile).size());
+  }
+
+  private static Fork daemonFork(List<String> classpath, Class<?> mainClass, String... args) {
+    return new Fork(
+            mainClass.getName(),
+            classpath,
+            new ArrayList<>(),
+            Arrays.asList(args),
+            new File(System.getProperty("java.home"), "bin/java"),
+            false,
+            LOGGER)
+        .withDaemon(4);
+  }
+
+  @Test
+  void scheduler_RunsAllAndAggregatesExitValues() throws Exception {
+    final List<String> classpath =
+        Arrays.asList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath(),
+            new File(Fork.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+    final File javaExecutable = new File(System.getProperty("java.home"), "bin/java");
+    final ForkScheduler scheduler = new ForkScheduler(2);
+    for (String exitValue : Arrays.asList("0", "3", "0")) {
+      scheduler.add(
+          "run-" + exitValue,
+          new Fork(
+              ExitMain.class.getName(),
+              classpath,
+              new ArrayList<>(),
+              Collections.singletonList(exitValue),
+              javaExecutable,
+              false,
+              LOGGER));
+    }
+
+    final ForkScheduler.Result result = scheduler.runAll();
+
+    assertEquals(3, result.runs.size());
+    assertTrue(result.runs.get(0).successful());
+    assertFalse(result.runs.get(1).successful());
+    assertEquals(3, result.exitValue());
+    final Fork.ForkException e = assertThrows(Fork.ForkException.class, result::throwIfFailed);
+    assertEquals(3, e.exitValue);
+  }
+
+  @Test
+  void isPropagatableProperty() {
+    assertTrue(Fork.isPropagatableProperty("gatling.core.simulationClass"));
+    assertTrue(Fork.isPropagatableProperty("javax.net.ssl.trustStore"));
+    assertTrue(Fork.isPropagatableProperty("java"));
+    assertFalse(Fork.isPropagatableProperty("java.home"));
+    assertFalse(Fork.isPropagatableProperty("user.dir"));
+    assertFalse(Fork.isPropagatableProperty("line.separator"));
+  }
+
+  @Test
+  void run_PropagatesSystemPropertiesThroughFile() throws Exception {
+    final List<String> classpath =
+        Arrays.asList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath(),
+            new File(Fork.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+    System.setProperty("fork.test.message", "hello \"world\" \u00e9");
+    try {
+      final Fork.ForkException e =
+          assertThrows(
+              Fork.ForkException.class,
+              () ->
+                  new Fork(
+                          PropertyMain.class.getName(),
+                          classpath,
+                          new ArrayList<>(),
+                          new ArrayList<>(),
+                          new File(System.getProperty("java.home"), "bin/java"),
+                          true,
+                          LOGGER)
+                      .run());
+      assertEquals(5, e.exitValue);
+    } finally {
+      System.clearProperty("fork.test.message");
+    }
+  }
+
+  @Test
+  void run_InProcessWhenNoJavaExecutable() throws Exception {
+    // the plugin classes are needed when the exit trap is not available and the main is forked
+    final List<String> classpath =
+        Arrays.asList(
+            new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath(),
+            new File(Fork.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath());
+
+    final Fork.ForkException e =
+        assertThrows(
+            Fork.ForkException.class,
+            () ->
+                new Fork(
+                        PropertyMain.class.getName(),
+                        classpath,
+                        // non-ASCII JVM options depend on the locale when the main is forked
+                        Collections.singletonList("-Dfork.test.message=hello \"world\""),
+                        Collections.singletonList("hello \"world\""),
+                        null,
+                        false,
+                        LOGGER)
+                    .run());
+
+    assertEquals(5, e.exitValue);
+    assertNull(System.getProperty("fork.test.message"));
+    assertEquals(ForkTest.class.getClassLoader(), Thread.currentThread().getContextClassLoader());
+  }
+
+  @Test
+  void run_InProcessWithExitTrapOnlyDuringTheRun() throws Exception {
+    assumeTrue(IsolatedMain.canTrapExit());
+    final Path jvmNameFile = cacheDirectory.resolve("jvm-name.txt");
+
+    new Fork(
+            JvmNameMain.class.getName(),
+            Collections.singletonList(
+                new File(ForkTest.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .getPath()),
+            new ArrayList<>(),
+            Collections.singletonList(jvmNameFile.toString()),
+            null,
+            false,
+            LOGGER)
+        .run();
+
+    assertEquals(
+        Collections.singletonList(ManagementFactory.getRuntimeMXBean().getName()),
+        Files.readAllLines(jvmNameFile));
+    assertNull(System.getSecurityManager());
+  }
+
+  @Test
+  void run_InProcessTrapsExitFromThreadsOfTheRun() throws Exception {
+    assumeTrue(IsolatedMain.canTrapExit());
+
+    final Fork.ForkException e =
+        assertThrows(
+            Fork.ForkException.class,
+            () ->
+                new Fork(
+                        ThreadExitMain.class.getName(),
+                        Collections.singletonList(
+                            new File(
+                                    ForkTest.class
+                                        .getProtectionDomain()
+                                        .getCodeSource()
+                                        .getLocation()
+                                        .toURI())
+                                .getPath()),
+                        new ArrayList<>(),
+                        Collections.singletonList("7"),
+                        null,
+                        false,
+                        LOGGER)
+                    .run());
+
+    assertEquals(7, e.exitValue);
+    assertNull(System.getSecurityManager());
+  }
+}
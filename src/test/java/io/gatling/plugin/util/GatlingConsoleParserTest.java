@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GatlingConsoleParserTest {
+
+  private static final String OUTPUT =
+      String.join(
+          "\n",
+          "Simulation computerdatabase.BasicSimulation started...",
+          "",
+          "================================================================================",
+          "2022-06-01 10:00:05                                           5s elapsed",
+          "---- Requests ------------------------------------------------------------------",
+          "> Global                                                   (OK=95     KO=5     )",
+          "> request_1                                                (OK=95     KO=5     )",
+          "---- Errors --------------------------------------------------------------------",
+          "> status.find.is(200), but actually found 500                         5 (100.0%)",
+          "",
+          "---- BasicSimulation -----------------------------------------------------------",
+          "[##########                                                                ] 13%",
+          "          waiting: 0      / active: 10     / done: 2",
+          "================================================================================",
+          "",
+          "Simulation computerdatabase.BasicSimulation completed in 10 seconds",
+          "",
+          "================================================================================",
+          "---- Global Information --------------------------------------------------------",
+          "> request count                                        200 (OK=190    KO=10    )",
+          "> min response time                                     10 (OK=10     KO=20    )",
+          "> response time 50th percentile                         90 (OK=90     KO=25    )",
+          "> response time 95th percentile                        300 (OK=300    KO=-     )",
+          "> mean requests/sec                                     20 (OK=19     KO=1     )",
+          "---- Response Time Distribution ------------------------------------------------",
+          "> t < 800 ms                                           190 ( 95%)",
+          "================================================================================");
+
+  @Test
+  void onLine_ProgressAndFinalStatistics() throws Exception {
+    final List<GatlingRunStatistics> statistics = new ArrayList<>();
+    final GatlingConsoleParser parser = new GatlingConsoleParser(statistics::add);
+    ForkOutputPipeline.readLines(new StringReader(OUTPUT), parser::onLine);
+
+    assertEquals(2, statistics.size());
+
+    final GatlingRunStatistics progress = statistics.get(0);
+    assertFalse(progress.finalStatistics);
+    assertEquals(5, progress.elapsedSeconds);
+    assertEquals(95, progress.okCount);
+    assertEquals(5, progress.koCount);
+    assertEquals(5.0, progress.koPercentage());
+
+    final GatlingRunStatistics summary = statistics.get(1);
+    assertTrue(summary.finalStatistics);
+    assertEquals(190, summary.okCount);
+    assertEquals(10, summary.koCount);
+    assertEquals(
+        Arrays.asList("50th", "95th"), new ArrayList<>(summary.responseTimePercentiles.keySet()));
+    assertEquals(300L, summary.responseTimePercentiles.get("95th"));
+  }
+
+  @Test
+  void readLines_SplitsOnAnyTerminatorAndBoundsLength() throws Exception {
+    final List<String> lines = new ArrayList<>();
+    final char[] longLine = new char[ForkOutputPipeline.MAX_LINE_LENGTH + 1];
+    Arrays.fill(longLine, 'a');
+    ForkOutputPipeline.readLines(
+        new StringReader("a\r\nb\rc\n" + new String(longLine)), lines::add);
+
+    assertEquals(5, lines.size());
+    assertEquals(Arrays.asList("a", "b", "c"), lines.subList(0, 3));
+    assertEquals(ForkOutputPipeline.MAX_LINE_LENGTH, lines.get(3).length());
+    assertEquals("a", lines.get(4));
+  }
+}
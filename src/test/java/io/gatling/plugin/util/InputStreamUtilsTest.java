@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class InputStreamUtilsTest {
+
+  private static byte[] randomBytes(int length) {
+    final byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+
+  /** Returns at most 1000 bytes per read, as network streams do */
+  private static InputStream chunked(byte[] bytes) {
+    return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return super.read(b, off, Math.min(len, 1000));
+      }
+    };
+  }
+
+  @Test
+  void readAllBytes_ExpectedLength() throws Exception {
+    final byte[] bytes = randomBytes(50_000);
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), bytes.length));
+  }
+
+  @Test
+  void readAllBytes_WrongExpectedLength() throws Exception {
+    final byte[] bytes = randomBytes(50_000);
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), 10));
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), 100_000));
+  }
+
+  @Test
+  void readAllBytes_ExpectedLengthLargerThanContent() throws Exception {
+    final byte[] bytes = randomBytes(50_000);
+    final BufferPool.Stats before = BufferPool.stats();
+    // e.g. a bogus Content-Length
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), Integer.MAX_VALUE - 1L));
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), Long.MAX_VALUE));
+    final BufferPool.Stats after = BufferPool.stats();
+    assertTrue(after.allocatedBytes - before.allocatedBytes <= BufferPool.MAX_POOLED_SIZE);
+  }
+
+  @Test
+  void readAllBytes_UnknownLength() throws Exception {
+    final byte[] bytes = randomBytes(3 * BufferPool.MAX_POOLED_SIZE);
+    assertArrayEquals(bytes, InputStreamUtils.readAllBytes(chunked(bytes), -1));
+    assertArrayEquals(new byte[0], InputStreamUtils.readAllBytes(chunked(new byte[0]), -1));
+  }
+
+  @Test
+  void readAllBytes_ReusesBuffers() throws Exception {
+    final byte[] bytes = randomBytes(100_000);
+    InputStreamUtils.readAllBytes(chunked(bytes), bytes.length);
+    final BufferPool.Stats before = BufferPool.stats();
+    InputStreamUtils.readAllBytes(chunked(bytes), bytes.length);
+    InputStreamUtils.readAllBytes(chunked(bytes), -1);
+    final BufferPool.Stats after = BufferPool.stats();
+    assertEquals(before.allocations, after.allocations);
+    assertEquals(before.acquisitions + 2, after.acquisitions);
+  }
+
+  @Test
+  void inputStreamToString_Utf8() throws Exception {
+    final String value = "Gatling Enterprise: éḀ £";
+    assertEquals(
+        value,
+        InputStreamUtils.inputStreamToString(
+            chunked(value.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    assertEquals(
+        value,
+        InputStreamUtils.inputStreamToString(
+            chunked(value.getBytes(StandardCharsets.UTF_8)), "UTF-8"));
+  }
+
+  @Test
+  void copy_AllBytes() throws Exception {
+    final byte[] bytes = randomBytes(200_000);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(bytes.length, InputStreamUtils.copy(chunked(bytes), out));
+    assertArrayEquals(bytes, out.toByteArray());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2011-2022 GatlingCorp (https://gatling.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.gatling.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.gatling.plugin.GatlingConstants;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JvmErgonomicsTest {
+
+  private static final long GB = 1024L * 1024 * 1024;
+
+  @Test
+  void jvmOptions_SmallContainer() {
+    assertEquals(
+        Arrays.asList("-Xmx614m", "-XX:MaxDirectMemorySize=256m", "-XX:ActiveProcessorCount=2"),
+        JvmErgonomics.jvmOptions(11, new JvmErgonomics.Resources(GB, 2)));
+  }
+
+  @Test
+  void jvmOptions_LargeHost() {
+    assertEquals(
+        Arrays.asList(
+            "-Xmx31744m",
+            "-XX:MaxDirectMemorySize=13107m",
+            "-XX:+UseZGC",
+            "-XX:+ZGenerational",
+            "-XX:ActiveProcessorCount=16"),
+        JvmErgonomics.jvmOptions(21, new JvmErgonomics.Resources(64 * GB, 16)));
+    assertEquals(
+        Arrays.asList("-Xmx31744m", "-XX:MaxDirectMemorySize=13107m"),
+        JvmErgonomics.jvmOptions(8, new JvmErgonomics.Resources(64 * GB, 16)));
+  }
+
+  @Test
+  void jvmOptions_TargetJavaVersion(@TempDir Path javaHomes) throws Exception {
+    // one of them differs from the current JVM
+    final File java8 = fakeJavaExecutable(javaHomes.resolve("jdk8/jre"));
+    Files.write(javaHomes.resolve("jdk8/release"), "JAVA_VERSION=\"1.8.0_392\"\n".getBytes());
+    final File java21 = fakeJavaExecutable(javaHomes.resolve("jdk21"));
+    Files.write(
+        javaHomes.resolve("jdk21/release"),
+        "IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"21.0.1\"\n".getBytes());
+
+    assertEquals(8, JvmErgonomics.javaMajorVersion(java8));
+    assertEquals(21, JvmErgonomics.javaMajorVersion(java21));
+    // only supported by the forked Java 21
+    assertFalse(
+        JvmErgonomics.jvmOptions(java8, Collections.emptyList()).stream()
+            .anyMatch(option -> option.startsWith("-XX:ActiveProcessorCount")));
+    assertTrue(
+        JvmErgonomics.jvmOptions(java21, Collections.emptyList()).stream()
+            .anyMatch(option -> option.startsWith("-XX:ActiveProcessorCount")));
+  }
+
+  @Test
+  void ergonomicJvmOptionsGatling_TargetJavaVersion(@TempDir Path javaHomes) throws Exception {
+    final File java8 = fakeJavaExecutable(javaHomes.resolve("jdk8"));
+    Files.write(javaHomes.resolve("jdk8/release"), "JAVA_VERSION=\"1.8.0_392\"\n".getBytes());
+    final File java21 = fakeJavaExecutable(javaHomes.resolve("jdk21"));
+    Files.write(javaHomes.resolve("jdk21/release"), "JAVA_VERSION=\"21.0.1\"\n".getBytes());
+
+    final List<String> userOptions = Collections.singletonList("-Dfoo=bar");
+    final List<String> java8Options =
+        GatlingConstants.ergonomicJvmOptionsGatling(java8, userOptions);
+    final List<String> java21Options =
+        GatlingConstants.ergonomicJvmOptionsGatling(java21, userOptions);
+
+    assertTrue(java8Options.contains("-XX:-UseBiasedLocking"));
+    // removed from Java 18
+    assertFalse(java21Options.contains("-XX:-UseBiasedLocking"));
+    assertEquals("-Dfoo=bar", java21Options.get(java21Options.size() - 1));
+  }
+
+  @Test
+  void javaMajorVersion_CurrentJvm() {
+    assertEquals(
+        GatlingConstants.JAVA_MAJOR_VERSION,
+        JvmErgonomics.javaMajorVersion(new File(System.getProperty("java.home"), "bin/java")));
+  }
+
+  @Test
+  void parseJavaMajorVersion() {
+    assertEquals(8, JvmErgonomics.parseJavaMajorVersion("1.8.0_392"));
+    assertEquals(11, JvmErgonomics.parseJavaMajorVersion("11.0.21"));
+    assertEquals(21, JvmErgonomics.parseJavaMajorVersion("21"));
+    assertEquals(23, JvmErgonomics.parseJavaMajorVersion("23-ea"));
+    assertEquals(-1, JvmErgonomics.parseJavaMajorVersion("unknown"));
+  }
+
+  private static File fakeJavaExecutable(Path javaHome) throws Exception {
+    Files.createDirectories(javaHome.resolve("bin"));
+    return Files.createFile(javaHome.resolve("bin/java")).toFile();
+  }
+
+  @Test
+  void withoutUserOverrides_UserOptionsWin() {
+    final List<String> options =
+        JvmErgonomics.jvmOptions(17, new JvmErgonomics.Resources(32 * GB, 8));
+
+    assertEquals(
+        Arrays.asList("-XX:MaxDirectMemorySize=6553m", "-XX:ActiveProcessorCount=8"),
+        JvmErgonomics.withoutUserOverrides(
+            options, Arrays.asList("-Xmx4G", "-XX:+UseParallelGC", "-Dfoo=bar")));
+    assertEquals(options, JvmErgonomics.withoutUserOverrides(options, Collections.emptyList()));
+  }
+
+  @Test
+  void detect_CgroupV2Limits(@TempDir Path cgroupRoot) throws Exception {
+    Files.write(cgroupRoot.resolve("memory.max"), "2147483648\n".getBytes());
+    Files.write(cgroupRoot.resolve("cpu.max"), "150000 100000\n".getBytes());
+
+    final JvmErgonomics.Resources resources = JvmErgonomics.detect(cgroupRoot, 16 * GB, 8);
+    assertEquals(2 * GB, resources.memoryBytes);
+    assertEquals(2, resources.cpus);
+  }
+
+  @Test
+  void detect_CgroupV1Unlimited(@TempDir Path cgroupRoot) throws Exception {
+    Files.createDirectories(cgroupRoot.resolve("memory"));
+    Files.createDirectories(cgroupRoot.resolve("cpu"));
+    Files.write(
+        cgroupRoot.resolve("memory/memory.limit_in_bytes"), "9223372036854771712\n".getBytes());
+    Files.write(cgroupRoot.resolve("cpu/cpu.cfs_quota_us"), "-1\n".getBytes());
+    Files.write(cgroupRoot.resolve("cpu/cpu.cfs_period_us"), "100000\n".getBytes());
+
+    final JvmErgonomics.Resources resources = JvmErgonomics.detect(cgroupRoot, 16 * GB, 8);
+    assertEquals(16 * GB, resources.memoryBytes);
+    assertEquals(8, resources.cpus);
+  }
+}